@@ -0,0 +1,168 @@
+package dev.langchain4j.quarkus.workshop;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+
+import io.quarkus.logging.Log;
+
+/**
+ * Caches the forecasts of open-meteo by grid cell, so that the popular destinations are not fetched again on every
+ * call.
+ * <p>
+ * The coordinates are rounded to a cell of {@code grid-degrees}, and the forecast of the center of the cell is
+ * fetched. A forecast expires at the next multiple of {@code update-cadence}, when the weather models publish a new
+ * run. The concurrent requests of a cell share a single call to open-meteo. With {@code stale-while-revalidate}, an
+ * expired forecast younger than {@code max-stale} is still returned while it is fetched again in the background, so
+ * that the expiry of a popular cell does not make its callers wait for open-meteo. Beyond {@code max-entries}, the
+ * forecasts older than {@code max-stale} are dropped, then the least recently read ones.
+ */
+@ApplicationScoped
+public class ForecastCache {
+
+    static final int FORECAST_DAYS = 16;
+    static final String HOURLY = "temperature_2m,snowfall,rain,precipitation,precipitation_probability";
+
+    @ConfigProperty(name = "weather.cache.grid-degrees", defaultValue = "0.1")
+    double gridDegrees;
+
+    @ConfigProperty(name = "weather.cache.update-cadence", defaultValue = "PT1H")
+    Duration updateCadence;
+
+    @ConfigProperty(name = "weather.cache.stale-while-revalidate", defaultValue = "true")
+    boolean staleWhileRevalidate;
+
+    @ConfigProperty(name = "weather.cache.max-stale", defaultValue = "PT6H")
+    Duration maxStale;
+
+    @ConfigProperty(name = "weather.cache.max-entries", defaultValue = "10000")
+    int maxEntries;
+
+    private record Cell(long latitude, long longitude) {
+    }
+
+    private record Forecast(String body, Instant expiresAt, AtomicLong lastRead) {
+
+        Forecast(String body, Instant expiresAt) {
+            this(body, expiresAt, new AtomicLong(System.nanoTime()));
+        }
+
+        String read() {
+            lastRead.set(System.nanoTime());
+            return body;
+        }
+    }
+
+    private final WeatherClient client;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<Cell, Forecast> forecasts = new ConcurrentHashMap<>();
+    private final Map<Cell, CompletableFuture<Forecast>> fetching = new ConcurrentHashMap<>();
+
+    public ForecastCache(@RestClient WeatherClient client) {
+        this.client = client;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * @return the hourly forecast of the next 16 days of the grid cell of the location, as returned by open-meteo
+     */
+    public String forecast(double latitude, double longitude) {
+        Cell cell = new Cell(Math.round(latitude / gridDegrees), Math.round(longitude / gridDegrees));
+        Instant now = Instant.now();
+        Forecast cached = forecasts.get(cell);
+        if (cached != null && now.isBefore(cached.expiresAt())) {
+            return cached.read();
+        }
+        boolean stale = staleWhileRevalidate && cached != null && now.isBefore(cached.expiresAt().plus(maxStale));
+        CompletableFuture<Forecast> fetched = fetch(cell);
+        if (stale) {
+            return cached.read();
+        }
+        try {
+            return fetched.join().body();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Fetches the forecast of the cell, unless it is already being fetched.
+     */
+    private CompletableFuture<Forecast> fetch(Cell cell) {
+        CompletableFuture<Forecast> fetched = new CompletableFuture<>();
+        CompletableFuture<Forecast> running = fetching.putIfAbsent(cell, fetched);
+        if (running != null) {
+            return running;
+        }
+        executor.execute(() -> {
+            try {
+                Forecast cached = forecasts.get(cell);
+                if (cached != null && Instant.now().isBefore(cached.expiresAt())) {
+                    // fetched again in the meantime
+                    fetched.complete(cached);
+                    return;
+                }
+                Forecast forecast = new Forecast(
+                        client.getForecast(center(cell.latitude()), center(cell.longitude()), FORECAST_DAYS, HOURLY),
+                        nextUpdate());
+                forecasts.put(cell, forecast);
+                evict();
+                fetched.complete(forecast);
+            } catch (RuntimeException e) {
+                Log.warnf("Failed to fetch the forecast of %s: %s", cell, e.getMessage());
+                fetched.completeExceptionally(e);
+            } finally {
+                fetching.remove(cell, fetched);
+            }
+        });
+        return fetched;
+    }
+
+    private double center(long cell) {
+        return Math.round(cell * gridDegrees * 1_000_000) / 1_000_000.0;
+    }
+
+    private Instant nextUpdate() {
+        long cadence = updateCadence.toMillis();
+        return Instant.ofEpochMilli((System.currentTimeMillis() / cadence + 1) * cadence);
+    }
+
+    private synchronized void evict() {
+        if (forecasts.size() <= maxEntries) {
+            return;
+        }
+        Instant oldest = Instant.now().minus(maxStale);
+        forecasts.values().removeIf(forecast -> forecast.expiresAt().isBefore(oldest));
+        int excess = forecasts.size() - maxEntries;
+        if (excess <= 0) {
+            return;
+        }
+        // a tenth more, so that the next fetches do not sort the forecasts again
+        forecasts.entrySet().stream()
+                .sorted(Comparator.comparingLong(entry -> entry.getValue().lastRead().get()))
+                .limit(excess + maxEntries / 10)
+                .map(Map.Entry::getKey)
+                .toList()
+                .forEach(forecasts::remove);
+    }
+}
@@ -0,0 +1,103 @@
+package dev.langchain4j.quarkus.workshop;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.inject.Inject;
+
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.test.InjectMock;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@QuarkusTest
+@TestProfile(ForecastCacheTest.ShortCadence.class)
+public class ForecastCacheTest {
+
+    /**
+     * Expires the forecasts every second.
+     */
+    public static class ShortCadence implements QuarkusTestProfile {
+
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of("weather.cache.update-cadence", "PT1S");
+        }
+    }
+
+    @InjectMock
+    @RestClient
+    WeatherClient client;
+
+    @Inject
+    ForecastCache cache;
+
+    @Test
+    public void testConcurrentRequestsShareOneCall() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(client.getForecast(anyDouble(), anyDouble(), anyInt(), anyString())).thenAnswer(invocation -> {
+            release.await();
+            return "forecast";
+        });
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<String>> forecasts = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                // the same cell
+                double offset = i * 0.001;
+                forecasts.add(executor.submit(() -> cache.forecast(48.86 + offset, 2.33 - offset)));
+            }
+            // let all the requests wait for the call before it returns
+            Thread.sleep(200);
+            release.countDown();
+            for (Future<String> forecast : forecasts) {
+                assertThat(forecast.get(5, TimeUnit.SECONDS)).isEqualTo("forecast");
+            }
+        }
+        verify(client, times(1)).getForecast(anyDouble(), anyDouble(), anyInt(), anyString());
+    }
+
+    @Test
+    public void testStaleForecastServedDuringRevalidation() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(client.getForecast(anyDouble(), anyDouble(), anyInt(), anyString()))
+                .thenReturn("first")
+                .thenAnswer(invocation -> {
+                    release.await();
+                    return "second";
+                });
+
+        assertThat(cache.forecast(35.68, 139.69)).isEqualTo("first");
+        // the forecast expires at the next second
+        Thread.sleep(1100);
+        // returned while the next forecast is still being fetched
+        assertThat(cache.forecast(35.68, 139.69)).isEqualTo("first");
+        verify(client, timeout(1000).times(2)).getForecast(anyDouble(), anyDouble(), anyInt(), anyString());
+
+        release.countDown();
+        String forecast = cache.forecast(35.68, 139.69);
+        for (int i = 0; i < 50 && !forecast.equals("second"); i++) {
+            Thread.sleep(100);
+            forecast = cache.forecast(35.68, 139.69);
+        }
+        assertThat(forecast).isEqualTo("second");
+    }
+}
@@ -0,0 +1,137 @@
+package dev.langchain4j.quarkus.workshop;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Generates the customers and bookings of the {@code step-11} application.
+ * <p>
+ * The last names are built from syllables, so that a name is shared by a few customers at most, as the lookups by
+ * name of the tools expect. The number of bookings of a customer follows a geometric distribution of mean
+ * {@code bookings-per-customer}, some customers having none and a few having many. The bookings start between
+ * {@code days-before} days ago and {@code days-after} days from now and last 1 to {@code max-duration-days} days. The
+ * locations are skewed toward the first ones: with a {@code location-skew} of 1 they are uniform, above it a few
+ * locations get most of the bookings.
+ */
+@ApplicationScoped
+public class BookingDataGenerator {
+
+    static final List<String> FIRST_NAMES = List.of(
+            "Speedy", "Zoom", "Vroom", "Turbo", "Drifty", "Alice", "Bruno", "Chloe", "Diego", "Emma", "Farid", "Grace",
+            "Hugo", "Ines", "Jonas", "Kenji", "Lena", "Marco", "Nina", "Oscar", "Priya", "Quentin", "Rosa", "Samir",
+            "Tara", "Ugo", "Vera", "Wei", "Ximena", "Yusuf", "Zoe", "Amara", "Bjorn", "Carmen", "Dmitri", "Elif",
+            "Felix", "Greta", "Hana", "Ivan");
+    static final List<String> SYLLABLES = List.of(
+            "mc", "wheel", "thun", "der", "foot", "light", "year", "gear", "shift", "skid", "dy", "ber", "ka", "lo",
+            "min", "son", "ro", "van", "stein", "ga", "li", "mo", "ra", "tes", "ford", "ton", "ley", "ver", "an", "dal");
+    static final List<String> CITIES = List.of(
+            "Verbier, Switzerland", "Sao Paulo, Brazil", "Antwerp, Belgium", "Tokyo, Japan", "Capetown, South Africa",
+            "Missoula, Montana", "Nuuk, Greenland", "Brisbane, Australia", "Singapore", "Dubai", "Santiago de Chile",
+            "Lisbon, Portugal", "Oslo, Norway", "Montreal, Canada", "Nairobi, Kenya", "Seoul, South Korea",
+            "Reykjavik, Iceland", "Marrakesh, Morocco", "Lima, Peru", "Hanoi, Vietnam");
+
+    @ConfigProperty(name = "generator.customers", defaultValue = "1000000")
+    long customers;
+
+    @ConfigProperty(name = "generator.bookings-per-customer", defaultValue = "3")
+    double bookingsPerCustomer;
+
+    @ConfigProperty(name = "generator.days-before", defaultValue = "180")
+    int daysBefore;
+
+    @ConfigProperty(name = "generator.days-after", defaultValue = "365")
+    int daysAfter;
+
+    @ConfigProperty(name = "generator.max-duration-days", defaultValue = "14")
+    int maxDurationDays;
+
+    @ConfigProperty(name = "generator.locations", defaultValue = "1000")
+    int locations;
+
+    @ConfigProperty(name = "generator.location-skew", defaultValue = "2")
+    double locationSkew;
+
+    @ConfigProperty(name = "generator.seed", defaultValue = "42")
+    long seed;
+
+    boolean enabled() {
+        return customers > 0;
+    }
+
+    List<TableLoad> load(Connection connection) throws SQLException {
+        SplittableRandom random = new SplittableRandom(seed);
+        long firstCustomer = TableLoad.maxId(connection, "customer") + 1;
+        long lastCustomer = firstCustomer + customers - 1;
+
+        long start = System.nanoTime();
+        long customerRows;
+        try (CopyStream copy = new CopyStream(connection, "customer", "id", "firstName", "lastName")) {
+            for (long id = firstCustomer; id <= lastCustomer; id++) {
+                copy.value(id)
+                        .value(FIRST_NAMES.get(random.nextInt(FIRST_NAMES.size())))
+                        .value(lastName(random))
+                        .endRow();
+            }
+            customerRows = copy.finish();
+        }
+        TableLoad.complete(connection, "customer", "Customer_SEQ", lastCustomer);
+        TableLoad customerLoad = new TableLoad("customer", customerRows, System.nanoTime() - start);
+
+        String[] names = locationNames();
+        LocalDate today = LocalDate.now();
+        long bookingId = TableLoad.maxId(connection, "booking") + 1;
+        start = System.nanoTime();
+        long bookingRows;
+        try (CopyStream copy = new CopyStream(connection, "booking", "id", "customer_id", "dateFrom", "dateTo", "location")) {
+            for (long customer = firstCustomer; customer <= lastCustomer; customer++) {
+                for (long i = geometric(random, bookingsPerCustomer); i > 0; i--) {
+                    LocalDate from = today.plusDays(random.nextInt(-daysBefore, daysAfter + 1));
+                    copy.value(bookingId++)
+                            .value(customer)
+                            .value(from)
+                            .value(from.plusDays(1 + random.nextInt(Math.max(1, maxDurationDays))))
+                            .value(names[(int) (names.length * Math.pow(random.nextDouble(), locationSkew))])
+                            .endRow();
+                }
+            }
+            bookingRows = copy.finish();
+        }
+        TableLoad.complete(connection, "booking", "Booking_SEQ", bookingId - 1);
+        return List.of(customerLoad, new TableLoad("booking", bookingRows, System.nanoTime() - start));
+    }
+
+    private String[] locationNames() {
+        String[] names = new String[Math.max(1, locations)];
+        for (int i = 0; i < names.length; i++) {
+            String city = CITIES.get(i % CITIES.size());
+            names[i] = i < CITIES.size() ? city : city + " (site " + (i / CITIES.size() + 1) + ")";
+        }
+        return names;
+    }
+
+    private static String lastName(SplittableRandom random) {
+        StringBuilder name = new StringBuilder();
+        for (int i = 2 + random.nextInt(3); i > 0; i--) {
+            name.append(SYLLABLES.get(random.nextInt(SYLLABLES.size())));
+        }
+        name.setCharAt(0, Character.toUpperCase(name.charAt(0)));
+        return name.toString();
+    }
+
+    /**
+     * @return a number of failures before a success, {@code mean} on average
+     */
+    static long geometric(SplittableRandom random, double mean) {
+        if (mean <= 0) {
+            return 0;
+        }
+        return (long) Math.floor(Math.log(1 - random.nextDouble()) / Math.log(mean / (1 + mean)));
+    }
+}
@@ -0,0 +1,161 @@
+package dev.langchain4j.quarkus.workshop;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.quarkus.logging.Log;
+
+/**
+ * Generates the {@code car_info} and {@code ApprovalProposal} rows of the car management applications of section 2.
+ * <p>
+ * The attributes of a car only depend on its id and the seed, so that the approval proposals, which refer to random
+ * generated cars, repeat their make, model, year and condition without holding the fleet in memory.
+ */
+@ApplicationScoped
+public class CarDataGenerator {
+
+    private static final List<String[]> MODELS = List.of(
+            new String[] { "Mercedes-Benz", "C-Class" }, new String[] { "BMW", "X5" }, new String[] { "Audi", "Q4" },
+            new String[] { "Nissan", "Altima" }, new String[] { "Ford", "Focus" }, new String[] { "Toyota", "Corolla" },
+            new String[] { "Honda", "Civic" }, new String[] { "Ford", "F-150" }, new String[] { "Volkswagen", "Golf" },
+            new String[] { "Renault", "Clio" }, new String[] { "Kia", "Sportage" }, new String[] { "Tesla", "Model 3" },
+            new String[] { "Hyundai", "Tucson" }, new String[] { "Peugeot", "308" }, new String[] { "Volvo", "XC60" });
+    private static final List<String> CONDITIONS = List.of(
+            "Like new, no issues", "Good condition, minor wear and tear", "Minor dent on passenger door",
+            "Small scratch on rear bumper", "Interior needs cleaning", "Brake pads recently replaced",
+            "Recently serviced, excellent condition", "High mileage, engine issues", "Cracked windshield",
+            "Transmission slipping, needs inspection");
+    private static final List<String> FEEDBACKS = List.of(
+            "The car ran smoothly, no complaints.", "There was a strange noise from the engine on the highway.",
+            "The air conditioning did not work.", "The car was dirty inside when I picked it up.",
+            "Warning lights kept turning on and off.", "The brakes felt soft.",
+            "Great car, would rent it again.", "The car broke down halfway through the trip.");
+    private static final List<String> DISPOSITIONS = List.of("SCRAP", "SELL", "DONATE", "KEEP");
+    private static final List<String> APPROVERS = List.of("fleet.manager", "ops.lead", "regional.director");
+
+    @ConfigProperty(name = "generator.cars", defaultValue = "0")
+    long cars;
+
+    @ConfigProperty(name = "generator.approval-proposals", defaultValue = "0")
+    long approvalProposals;
+
+    @ConfigProperty(name = "generator.seed", defaultValue = "42")
+    long seed;
+
+    private record Car(String make, String model, int year, String condition, String status) {
+    }
+
+    boolean enabled() {
+        return cars > 0;
+    }
+
+    List<TableLoad> load(Connection connection) throws SQLException {
+        List<TableLoad> loads = new ArrayList<>();
+        long firstCar = TableLoad.maxId(connection, "car_info") + 1;
+        long lastCar = firstCar + cars - 1;
+
+        long start = System.nanoTime();
+        long carRows;
+        try (CopyStream copy = new CopyStream(connection, "car_info", "id", "make", "model", "year", "condition", "status")) {
+            for (long id = firstCar; id <= lastCar; id++) {
+                Car car = car(id);
+                copy.value(id).value(car.make()).value(car.model()).value(car.year()).value(car.condition())
+                        .value(car.status()).endRow();
+            }
+            carRows = copy.finish();
+        }
+        TableLoad.complete(connection, "car_info", "CarInfo_SEQ", lastCar);
+        loads.add(new TableLoad("car_info", carRows, System.nanoTime() - start));
+
+        if (approvalProposals <= 0) {
+            return loads;
+        }
+        if (lastCar > Integer.MAX_VALUE) {
+            Log.warnf("Car ids above %d do not fit the car number of the approval proposals, none generated",
+                    Integer.MAX_VALUE);
+            return loads;
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        long proposalId = TableLoad.maxId(connection, "ApprovalProposal") + 1;
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        start = System.nanoTime();
+        long proposalRows;
+        try (CopyStream copy = new CopyStream(connection, "ApprovalProposal", "id", "carNumber", "carMake", "carModel",
+                "carYear", "carValue", "proposedDisposition", "dispositionReason", "carCondition", "rentalFeedback",
+                "status", "decision", "approvalReason", "approvedBy", "createdAt", "decidedAt")) {
+            for (long i = 0; i < approvalProposals; i++) {
+                long carNumber = random.nextLong(firstCar, lastCar + 1);
+                Car car = car(carNumber);
+                String disposition = pick(random, DISPOSITIONS);
+                LocalDateTime createdAt = now.minusMinutes(random.nextInt(60 * 24 * 90));
+                // most proposals have been decided, the recent ones are more likely to be pending
+                boolean pending = createdAt.isAfter(now.minusDays(7)) || random.nextInt(10) == 0;
+                boolean approved = random.nextInt(4) > 0;
+                copy.value(proposalId++)
+                        .value(carNumber)
+                        .value(car.make())
+                        .value(car.model())
+                        .value(car.year())
+                        .value(value(random, car.year()))
+                        .value(disposition)
+                        .value(reason(disposition, car))
+                        .value(car.condition())
+                        .value(pick(random, FEEDBACKS))
+                        .value(pending ? "PENDING" : approved ? "APPROVED" : "REJECTED")
+                        .value(pending ? null : approved ? "APPROVED" : "REJECTED")
+                        .value(pending ? null : approved ? "Agree with the assessment" : "The car can still be rented")
+                        .value(pending ? null : pick(random, APPROVERS))
+                        .value(createdAt)
+                        .value(pending ? null : createdAt.plusMinutes(5 + random.nextInt(60 * 48)))
+                        .endRow();
+            }
+            proposalRows = copy.finish();
+        }
+        TableLoad.complete(connection, "ApprovalProposal", "ApprovalProposal_SEQ", proposalId - 1);
+        loads.add(new TableLoad("ApprovalProposal", proposalRows, System.nanoTime() - start));
+        return loads;
+    }
+
+    private Car car(long id) {
+        SplittableRandom random = new SplittableRandom(seed ^ id * 0x9E3779B97F4A7C15L);
+        String[] model = MODELS.get(random.nextInt(MODELS.size()));
+        int age = random.nextInt(16);
+        // the older cars are more often in a bad condition, and in maintenance
+        String condition = CONDITIONS.get(Math.min(CONDITIONS.size() - 1, random.nextInt(CONDITIONS.size() / 2 + age / 2)));
+        int status = random.nextInt(100);
+        return new Car(model[0], model[1], Year.now().getValue() - age, condition,
+                status < 40 ? "AVAILABLE"
+                        : status < 75 ? "RENTED"
+                        : status < 85 ? "AT_CLEANING"
+                        : status < 95 ? "IN_MAINTENANCE"
+                        : "PENDING_DISPOSITION");
+    }
+
+    private static String value(SplittableRandom random, int year) {
+        int age = Year.now().getValue() - year;
+        long value = Math.max(500, 35_000 - age * 2_200L + random.nextInt(-2_000, 2_001));
+        return String.format("$%,d", value / 100 * 100);
+    }
+
+    private static String reason(String disposition, Car car) {
+        return switch (disposition) {
+            case "SCRAP" -> "Repairs would cost more than the car is worth: " + car.condition().toLowerCase();
+            case "SELL" -> "The " + car.year() + " " + car.model() + " has reached the end of its rental life";
+            case "DONATE" -> "Low resale value, still usable by a charity";
+            default -> "The issue can be fixed, the car can stay in the fleet";
+        };
+    }
+
+    private static <T> T pick(SplittableRandom random, List<T> values) {
+        return values.get(random.nextInt(values.size()));
+    }
+}
@@ -0,0 +1,84 @@
+package dev.langchain4j.quarkus.workshop;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+/**
+ * Streams rows into a table with {@code COPY ... FROM STDIN}, in the text format: the rows are sent by chunks as they
+ * are generated, so a table of any size is loaded in a single statement without being held in memory. The whole
+ * table is committed at once; a failed or unfinished copy loads nothing.
+ */
+final class CopyStream implements AutoCloseable {
+
+    private static final int CHUNK = 64 * 1024;
+
+    private final CopyIn copy;
+    private final StringBuilder chunk = new StringBuilder(CHUNK + 1024);
+    private boolean rowStart = true;
+
+    CopyStream(Connection connection, String table, String... columns) throws SQLException {
+        copy = connection.unwrap(PGConnection.class).getCopyAPI()
+                .copyIn("COPY " + table + " (" + String.join(", ", columns) + ") FROM STDIN");
+    }
+
+    /**
+     * Appends the next column of the current row, {@code null} being SQL NULL.
+     */
+    CopyStream value(Object value) {
+        if (!rowStart) {
+            chunk.append('\t');
+        }
+        rowStart = false;
+        if (value == null) {
+            chunk.append("\\N");
+            return this;
+        }
+        String text = value.toString();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\\' -> chunk.append("\\\\");
+                case '\t' -> chunk.append("\\t");
+                case '\n' -> chunk.append("\\n");
+                case '\r' -> chunk.append("\\r");
+                default -> chunk.append(c);
+            }
+        }
+        return this;
+    }
+
+    void endRow() throws SQLException {
+        chunk.append('\n');
+        rowStart = true;
+        if (chunk.length() >= CHUNK) {
+            flush();
+        }
+    }
+
+    /**
+     * Sends the last rows and commits the copy.
+     *
+     * @return the number of rows loaded
+     */
+    long finish() throws SQLException {
+        flush();
+        return copy.endCopy();
+    }
+
+    @Override
+    public void close() throws SQLException {
+        if (copy.isActive()) {
+            copy.cancelCopy();
+        }
+    }
+
+    private void flush() throws SQLException {
+        byte[] bytes = chunk.toString().getBytes(StandardCharsets.UTF_8);
+        copy.writeToCopy(bytes, 0, bytes.length);
+        chunk.setLength(0);
+    }
+}
@@ -0,0 +1,51 @@
+package dev.langchain4j.quarkus.workshop;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.QuarkusApplication;
+import io.quarkus.runtime.annotations.QuarkusMain;
+
+/**
+ * Loads the generated rows into the configured database, then reports the rows and the rows per second of each table.
+ */
+@QuarkusMain
+public class DataGenerator implements QuarkusApplication {
+
+    private final DataSource dataSource;
+    private final BookingDataGenerator bookings;
+    private final CarDataGenerator cars;
+
+    public DataGenerator(DataSource dataSource, BookingDataGenerator bookings, CarDataGenerator cars) {
+        this.dataSource = dataSource;
+        this.bookings = bookings;
+        this.cars = cars;
+    }
+
+    @Override
+    public int run(String... args) throws Exception {
+        List<TableLoad> loads = new ArrayList<>();
+        long start = System.nanoTime();
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(true);
+            if (bookings.enabled()) {
+                loads.addAll(bookings.load(connection));
+            }
+            if (cars.enabled()) {
+                loads.addAll(cars.load(connection));
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        long rows = loads.stream().mapToLong(TableLoad::rows).sum();
+
+        StringBuilder report = new StringBuilder("\n").append(TableLoad.HEADER);
+        loads.forEach(load -> report.append('\n').append(load));
+        report.append('\n').append(new TableLoad("total", rows, elapsed));
+        Log.info(report);
+        return 0;
+    }
+}
@@ -0,0 +1,61 @@
+package dev.langchain4j.quarkus.workshop;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import io.quarkus.logging.Log;
+
+/**
+ * The outcome of loading one table: the rows copied and the time it took, analyzing the table included.
+ */
+public record TableLoad(String table, long rows, long elapsedNanos) {
+
+    static final String HEADER = String.format("%-18s %12s %10s %12s", "table", "rows", "time(ms)", "rows/s");
+
+    double rowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rows * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-18s %,12d %,10d %,12.0f", table, rows, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                rowsPerSecond());
+    }
+
+    /**
+     * @return the highest id of the table, the generated rows being numbered after it
+     */
+    static long maxId(Connection connection, String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet max = statement.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + table)) {
+            max.next();
+            return max.getLong(1);
+        }
+    }
+
+    /**
+     * Moves the Hibernate sequence of the table past the generated ids, and refreshes the statistics of the table for
+     * the query planner. Hibernate names the sequence after the entity, not the table, as in {@code CarInfo_SEQ}, and
+     * PostgreSQL folds it to lower case.
+     */
+    static void complete(Connection connection, String table, String sequence, long maxId) throws SQLException {
+        try (PreparedStatement setval = connection.prepareStatement(
+                "SELECT setval(?, ?) WHERE to_regclass(?) IS NOT NULL")) {
+            setval.setString(1, sequence);
+            setval.setLong(2, maxId);
+            setval.setString(3, sequence);
+            try (ResultSet advanced = setval.executeQuery()) {
+                if (!advanced.next()) {
+                    Log.warnf("No %s sequence, the ids of the next %s rows may collide", sequence, table);
+                }
+            }
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE " + table);
+        }
+    }
+}
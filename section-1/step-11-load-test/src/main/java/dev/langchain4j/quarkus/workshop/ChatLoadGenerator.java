@@ -0,0 +1,280 @@
+package dev.langchain4j.quarkus.workshop;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.WebSocket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.quarkus.logging.Log;
+
+/**
+ * Opens N concurrent WebSocket sessions against the customer support agent and plays a scripted multi-turn
+ * conversation on each of them, measuring the per-turn latency (from sending a message to receiving the answer).
+ */
+@ApplicationScoped
+public class ChatLoadGenerator {
+
+    static final List<String> CONVERSATION = List.of(
+            "Hello, my name is Speedy McWheels.",
+            "What is your cancellation policy?",
+            "Can I cancel a booking that starts in two weeks?",
+            "And what about a booking that only lasts three days?",
+            "Thanks, that's all I needed.");
+
+    @ConfigProperty(name = "load-test.target", defaultValue = "ws://localhost:8080/customer-support-agent")
+    URI target;
+
+    @ConfigProperty(name = "load-test.metrics", defaultValue = "http://localhost:8080/q/metrics")
+    URI metrics;
+
+    /**
+     * Timers of the target whose mean is reported for each level, to measure the cost of a component under load.
+     */
+    @ConfigProperty(name = "load-test.timers", defaultValue = "chat.memory.load,chat.memory.flush")
+    List<String> timers;
+
+    @ConfigProperty(name = "load-test.think-time", defaultValue = "PT0.5S")
+    Duration thinkTime;
+
+    @ConfigProperty(name = "load-test.turn-timeout", defaultValue = "PT2M")
+    Duration turnTimeout;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    /**
+     * Runs one load level: opens {@code sessions} connections, plays {@code turns} turns of the scripted
+     * conversation on each of them and closes them all.
+     */
+    public LoadReport run(int sessions, int turns) throws InterruptedException {
+        String metricsBefore = scrape();
+        long heapBefore = heapUsed(metricsBefore);
+        List<Session> opened = Collections.synchronizedList(new ArrayList<>());
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger failures = new AtomicInteger();
+        CountDownLatch connected = new CountDownLatch(sessions);
+        CountDownLatch finished = new CountDownLatch(sessions);
+
+        long start = System.nanoTime();
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < sessions; i++) {
+                executor.submit(() -> {
+                    Session session = null;
+                    try {
+                        session = Session.open(client, target, turnTimeout);
+                        opened.add(session);
+                    } catch (Exception e) {
+                        Log.debugf(e, "Unable to open session");
+                        failures.incrementAndGet();
+                    } finally {
+                        connected.countDown();
+                    }
+                    try {
+                        // wait for the whole level to be connected, so the latencies are measured at full concurrency
+                        connected.await();
+                        if (session != null) {
+                            converse(session, turns, latencies, failures);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        finished.countDown();
+                    }
+                });
+            }
+            finished.await();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        int held = (int) opened.stream().filter(Session::isOpen).count();
+        String metricsAfter = scrape();
+        long heapAfter = heapUsed(metricsAfter);
+        opened.forEach(Session::close);
+
+        long heapPerSession = held == 0 || heapBefore < 0 || heapAfter < 0 ? -1 : (heapAfter - heapBefore) / held;
+        Map<String, Double> timerMeans = new LinkedHashMap<>();
+        timers.forEach(timer -> timerMeans.put(timer, timerMean(metricsBefore, metricsAfter, timer)));
+        return LoadReport.of(sessions, held, failures.get(), latencies, elapsed, heapPerSession, timerMeans);
+    }
+
+    /**
+     * Runs increasing load levels and stops at the knee, i.e. the first level whose throughput does not grow by at
+     * least {@code minGain} compared to the previous one, or that starts to fail.
+     */
+    public List<LoadReport> sweep(int from, int to, int step, int turns, double minGain) throws InterruptedException {
+        List<LoadReport> reports = new ArrayList<>();
+        LoadReport previous = null;
+        for (int sessions = from; sessions <= to; sessions += step) {
+            LoadReport report = run(sessions, turns);
+            reports.add(report);
+            Log.infof("%s", report);
+            if (report.failures() > 0
+                    || previous != null && report.messagesPerSecond() < previous.messagesPerSecond() * (1 + minGain)) {
+                reports.set(reports.size() - 1, report.markKnee());
+                break;
+            }
+            previous = report;
+        }
+        return reports;
+    }
+
+    private void converse(Session session, int turns, List<Long> latencies, AtomicInteger failures)
+            throws InterruptedException {
+        for (int turn = 0; turn < turns; turn++) {
+            try {
+                latencies.add(session.send(CONVERSATION.get(turn % CONVERSATION.size())));
+            } catch (Exception e) {
+                Log.debugf(e, "Turn %d failed", turn);
+                failures.incrementAndGet();
+                return;
+            }
+            Thread.sleep(thinkTime);
+        }
+    }
+
+    /**
+     * @return the metrics exposed by the target, in the Prometheus format, or {@code null} when its metrics endpoint
+     * is not reachable
+     */
+    private String scrape() {
+        try {
+            return client.send(HttpRequest.newBuilder(metrics).GET().build(),
+                    HttpResponse.BodyHandlers.ofString()).body();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            Log.debugf(e, "Unable to read the metrics from %s", metrics);
+            return null;
+        }
+    }
+
+    /**
+     * Sums the {@code jvm_memory_used_bytes{area="heap"}} series, or returns -1 when there are no metrics.
+     */
+    private static long heapUsed(String metrics) {
+        if (metrics == null) {
+            return -1;
+        }
+        return (long) sum(metrics, "jvm_memory_used_bytes", "area=\"heap\"");
+    }
+
+    /**
+     * @return the mean duration in milliseconds of the timer events recorded between the two scrapes, or -1
+     */
+    private static double timerMean(String before, String after, String timer) {
+        if (before == null || after == null) {
+            return -1;
+        }
+        String name = timer.replace('.', '_') + "_seconds";
+        double count = sum(after, name + "_count", "") - sum(before, name + "_count", "");
+        double seconds = sum(after, name + "_sum", "") - sum(before, name + "_sum", "");
+        return count <= 0 ? -1 : seconds * 1000 / count;
+    }
+
+    private static double sum(String metrics, String name, String label) {
+        return metrics.lines()
+                .filter(line -> (line.startsWith(name + "{") || line.startsWith(name + " ")) && line.contains(label))
+                .mapToDouble(line -> Double.parseDouble(line.substring(line.lastIndexOf(' ') + 1)))
+                .sum();
+    }
+
+    /**
+     * A single chat session; answers are collected by the WebSocket listener and handed over to the turn waiting
+     * for them.
+     */
+    static class Session implements WebSocket.Listener {
+
+        private static final String SESSION_TOKEN_PREFIX = "session-token:";
+
+        private final Duration timeout;
+        private final StringBuilder buffer = new StringBuilder();
+        private volatile CompletableFuture<String> answer = new CompletableFuture<>();
+        private WebSocket webSocket;
+
+        private Session(Duration timeout) {
+            this.timeout = timeout;
+        }
+
+        static Session open(HttpClient client, URI target, Duration timeout) throws Exception {
+            Session session = new Session(timeout);
+            session.webSocket = client.newWebSocketBuilder()
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .buildAsync(target, session)
+                    .get(10, TimeUnit.SECONDS);
+            // the welcome message
+            session.await();
+            return session;
+        }
+
+        long send(String message) throws Exception {
+            long start = System.nanoTime();
+            webSocket.sendText(message, true).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            await();
+            return System.nanoTime() - start;
+        }
+
+        private String await() throws Exception {
+            try {
+                return answer.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            } finally {
+                answer = new CompletableFuture<>();
+            }
+        }
+
+        boolean isOpen() {
+            return webSocket != null && !webSocket.isInputClosed() && !webSocket.isOutputClosed();
+        }
+
+        void close() {
+            if (isOpen()) {
+                webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "done");
+            }
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+            buffer.append(data);
+            if (last) {
+                String message = buffer.toString();
+                buffer.setLength(0);
+                // the session token is not an answer
+                if (!message.startsWith(SESSION_TOKEN_PREFIX)) {
+                    answer.complete(message);
+                }
+            }
+            webSocket.request(1);
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+            answer.completeExceptionally(new IllegalStateException("Closed by the server: " + statusCode + " " + reason));
+            return null;
+        }
+
+        @Override
+        public void onError(WebSocket webSocket, Throwable error) {
+            answer.completeExceptionally(error);
+        }
+    }
+}
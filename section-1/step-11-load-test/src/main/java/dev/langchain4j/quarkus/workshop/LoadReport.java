@@ -0,0 +1,59 @@
+package dev.langchain4j.quarkus.workshop;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The outcome of one load level. Latencies are per turn, in milliseconds; the heap per session is -1 when the
+ * target does not expose its metrics. The timers are the mean durations, in milliseconds, of the target's timers
+ * during the level, -1 when they recorded nothing.
+ */
+public record LoadReport(int sessions, int held, int failures, int turns, double messagesPerSecond,
+                         long p50, long p95, long p99, long heapPerSession, Map<String, Double> timers,
+                         boolean knee) {
+
+    static final String HEADER = String.format("%8s %6s %8s %7s %9s %8s %8s %8s %12s%n",
+            "sessions", "held", "failures", "turns", "msg/s", "p50(ms)", "p95(ms)", "p99(ms)", "heap/session");
+
+    static LoadReport of(int sessions, int held, int failures, List<Long> latencies, long elapsedNanos,
+                         long heapPerSession, Map<String, Double> timers) {
+        List<Long> sorted;
+        synchronized (latencies) {
+            sorted = new ArrayList<>(latencies);
+        }
+        Collections.sort(sorted);
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        return new LoadReport(sessions, held, failures, sorted.size(), sorted.size() / seconds,
+                percentile(sorted, 50), percentile(sorted, 95), percentile(sorted, 99), heapPerSession, timers, false);
+    }
+
+    LoadReport markKnee() {
+        return new LoadReport(sessions, held, failures, turns, messagesPerSecond, p50, p95, p99, heapPerSession, timers,
+                true);
+    }
+
+    // nearest-rank percentile
+    private static long percentile(List<Long> sorted, int percentile) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.size());
+        return TimeUnit.NANOSECONDS.toMillis(sorted.get(Math.max(0, rank - 1)));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder row = new StringBuilder(String.format("%8d %6d %8d %7d %9.1f %8d %8d %8d %12s",
+                sessions, held, failures, turns, messagesPerSecond, p50, p95, p99,
+                heapPerSession < 0 ? "n/a" : heapPerSession / 1024 + " KiB"));
+        timers.forEach((timer, mean) -> {
+            if (mean >= 0) {
+                row.append(String.format("  %s=%.2fms", timer, mean));
+            }
+        });
+        return row.append(knee ? "  <- knee" : "").toString();
+    }
+}
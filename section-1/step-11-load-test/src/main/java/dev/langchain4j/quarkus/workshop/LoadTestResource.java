@@ -0,0 +1,94 @@
+package dev.langchain4j.quarkus.workshop;
+
+import java.util.List;
+
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+import org.jboss.resteasy.reactive.RestQuery;
+
+import io.smallrye.common.annotation.RunOnVirtualThread;
+
+@Path("/load-test")
+@Produces(MediaType.TEXT_PLAIN)
+public class LoadTestResource {
+
+    private final ChatLoadGenerator generator;
+    private final StubChatModel model;
+
+    public LoadTestResource(ChatLoadGenerator generator, StubChatModel model) {
+        this.generator = generator;
+        this.model = model;
+    }
+
+    /**
+     * Runs a single load level, e.g. {@code /load-test/run?sessions=200&turns=5}.
+     */
+    @GET
+    @Path("/run")
+    @RunOnVirtualThread
+    public String run(@RestQuery int sessions, @RestQuery int turns) throws InterruptedException {
+        return format(List.of(generator.run(sessions, turns <= 0 ? ChatLoadGenerator.CONVERSATION.size() : turns)));
+    }
+
+    /**
+     * Increases the number of sessions from {@code from} to {@code to} and stops at the knee, e.g.
+     * {@code /load-test/sweep?from=50&to=2000&step=50}.
+     */
+    @GET
+    @Path("/sweep")
+    @RunOnVirtualThread
+    public String sweep(@RestQuery int from, @RestQuery int to, @RestQuery int step, @RestQuery int turns,
+                        @RestQuery double minGain) throws InterruptedException {
+        return format(generator.sweep(Math.max(1, from), to, Math.max(1, step),
+                turns <= 0 ? ChatLoadGenerator.CONVERSATION.size() : turns,
+                minGain <= 0 ? 0.1 : minGain));
+    }
+
+    /**
+     * Runs a single load level against the stub failing a fraction of the answers, e.g.
+     * {@code /load-test/retry-amplification?sessions=50&turns=5} with {@code stub.error-rate=0.3}, and checks that
+     * only the failed model calls are retried: one injection check per turn, and one answer call per turn plus one
+     * per failed call. Answers 417 Expectation Failed otherwise, so that the run can gate a build with
+     * {@code curl -f}.
+     */
+    @GET
+    @Path("/retry-amplification")
+    @RunOnVirtualThread
+    public Response retryAmplification(@RestQuery int sessions, @RestQuery int turns) throws InterruptedException {
+        if (model.errorRate() <= 0) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("Set stub.error-rate, the stub has to fail some answers\n").build();
+        }
+        long completions = model.completions();
+        long checks = model.injectionChecks();
+        long failures = model.failures();
+        LoadReport level = generator.run(Math.max(1, sessions),
+                turns <= 0 ? ChatLoadGenerator.CONVERSATION.size() : turns);
+        checks = model.injectionChecks() - checks;
+        failures = model.failures() - failures;
+        long answers = model.completions() - completions - checks;
+
+        boolean amplified = level.turns() == 0 || checks > level.turns() || answers > level.turns() + failures;
+        String report = LoadReport.HEADER + level + "\n"
+                + String.format("per turn: %.2f model calls, %.2f injection checks, %.2f answer calls (%d failed on purpose)%n",
+                        (double) (checks + answers) / Math.max(1, level.turns()),
+                        (double) checks / Math.max(1, level.turns()),
+                        (double) answers / Math.max(1, level.turns()), failures)
+                + (amplified ? "FAILED: the failed answers repeat more than the model call\n" : "OK\n");
+        return Response.status(amplified ? Response.Status.EXPECTATION_FAILED : Response.Status.OK)
+                .entity(report).build();
+    }
+
+    private String format(List<LoadReport> reports) {
+        StringBuilder report = new StringBuilder(LoadReport.HEADER);
+        reports.forEach(level -> report.append(level).append('\n'));
+        report.append("model calls served by the stub: ").append(model.completions())
+                .append(" (injection checks: ").append(model.injectionChecks())
+                .append(", failed on purpose: ").append(model.failures()).append(")\n");
+        return report.toString();
+    }
+}
@@ -0,0 +1,191 @@
+package dev.langchain4j.quarkus.workshop;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.Router;
+import io.vertx.ext.web.RoutingContext;
+import io.vertx.ext.web.handler.BodyHandler;
+
+/**
+ * A stand-in for the OpenAI chat completions endpoint, so the support agent can be loaded without paying for
+ * (or being throttled by) a real provider. Point the agent at it with
+ * {@code quarkus.langchain4j.openai.base-url=http://localhost:8082/v1/}.
+ * <p>
+ * The prompt injection detection call gets a bare score, every other call a canned answer. Both non-streaming and
+ * streaming (SSE) requests are supported, and the answer is delayed by a configurable latency to mimic the model.
+ * <p>
+ * To mimic a provider brownout, a fraction {@code stub.error-rate} of the answers fail with a 503, the injection
+ * checks never fail: counting them shows how many of them the retries of a failed answer repeat.
+ */
+@ApplicationScoped
+public class StubChatModel {
+
+    private static final String ANSWER_WORD = "smile ";
+
+    @ConfigProperty(name = "stub.latency-ms", defaultValue = "500")
+    long latencyMs;
+
+    @ConfigProperty(name = "stub.inter-token-ms", defaultValue = "20")
+    long interTokenMs;
+
+    @ConfigProperty(name = "stub.answer-tokens", defaultValue = "40")
+    int answerTokens;
+
+    @ConfigProperty(name = "stub.error-rate", defaultValue = "0")
+    double errorRate;
+
+    private final AtomicLong completions = new AtomicLong();
+    private final AtomicLong injectionChecks = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    void init(@Observes Router router) {
+        router.post("/v1/chat/completions")
+                .handler(BodyHandler.create())
+                .handler(this::complete);
+    }
+
+    public double errorRate() {
+        return errorRate;
+    }
+
+    public long completions() {
+        return completions.get();
+    }
+
+    public long injectionChecks() {
+        return injectionChecks.get();
+    }
+
+    public long failures() {
+        return failures.get();
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    private void complete(RoutingContext ctx) {
+        JsonObject request = ctx.body().asJsonObject();
+        boolean stream = request.getBoolean("stream", false);
+        JsonArray messages = request.getJsonArray("messages", new JsonArray());
+        boolean injectionCheck = isInjectionCheck(messages);
+        String answer = injectionCheck ? "0.0" : ANSWER_WORD.repeat(answerTokens).trim();
+        int promptTokens = estimateTokens(messages);
+        String model = request.getString("model", "stub");
+        if (injectionCheck) {
+            injectionChecks.incrementAndGet();
+        }
+        boolean fail = !injectionCheck && ThreadLocalRandom.current().nextDouble() < errorRate;
+
+        inFlight.incrementAndGet();
+        ctx.vertx().setTimer(Math.max(1, latencyMs), id -> {
+            if (fail) {
+                failures.incrementAndGet();
+                ctx.response()
+                        .setStatusCode(503)
+                        .putHeader("Content-Type", "application/json")
+                        .end(new JsonObject().put("error", new JsonObject()
+                                .put("message", "The stub is browning out")
+                                .put("type", "server_error")).encode());
+                done();
+            } else if (stream) {
+                stream(ctx, model, answer, promptTokens);
+            } else {
+                ctx.response()
+                        .putHeader("Content-Type", "application/json")
+                        .end(completion(model, answer, promptTokens).encode());
+                done();
+            }
+        });
+    }
+
+    private void stream(RoutingContext ctx, String model, String answer, int promptTokens) {
+        String[] tokens = answer.split("(?<= )");
+        ctx.response()
+                .setChunked(true)
+                .putHeader("Content-Type", "text/event-stream");
+        AtomicInteger next = new AtomicInteger();
+        ctx.vertx().setPeriodic(Math.max(1, interTokenMs), timer -> {
+            int i = next.getAndIncrement();
+            if (ctx.response().closed()) {
+                ctx.vertx().cancelTimer(timer);
+                done();
+            } else if (i < tokens.length) {
+                ctx.response().write("data: " + chunk(model, tokens[i], null).encode() + "\n\n");
+            } else {
+                ctx.vertx().cancelTimer(timer);
+                JsonObject last = chunk(model, "", "stop").put("usage", usage(promptTokens, tokens.length));
+                ctx.response().write("data: " + last.encode() + "\n\n");
+                ctx.response().end("data: [DONE]\n\n");
+                done();
+            }
+        });
+    }
+
+    private void done() {
+        inFlight.decrementAndGet();
+        completions.incrementAndGet();
+    }
+
+    private static boolean isInjectionCheck(JsonArray messages) {
+        for (int i = 0; i < messages.size(); i++) {
+            Object content = messages.getJsonObject(i).getValue("content");
+            if (content != null && content.toString().contains("security detection system")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // roughly 4 characters per token, good enough to feed the usage block
+    private static int estimateTokens(JsonArray messages) {
+        int chars = 0;
+        for (int i = 0; i < messages.size(); i++) {
+            Object content = messages.getJsonObject(i).getValue("content");
+            chars += content == null ? 0 : content.toString().length();
+        }
+        return Math.max(1, chars / 4);
+    }
+
+    private static JsonObject completion(String model, String answer, int promptTokens) {
+        return new JsonObject()
+                .put("id", "chatcmpl-stub")
+                .put("object", "chat.completion")
+                .put("created", System.currentTimeMillis() / 1000)
+                .put("model", model)
+                .put("choices", new JsonArray().add(new JsonObject()
+                        .put("index", 0)
+                        .put("message", new JsonObject().put("role", "assistant").put("content", answer))
+                        .put("finish_reason", "stop")))
+                .put("usage", usage(promptTokens, answer.split(" ").length));
+    }
+
+    private static JsonObject chunk(String model, String token, String finishReason) {
+        return new JsonObject()
+                .put("id", "chatcmpl-stub")
+                .put("object", "chat.completion.chunk")
+                .put("created", System.currentTimeMillis() / 1000)
+                .put("model", model)
+                .put("choices", new JsonArray().add(new JsonObject()
+                        .put("index", 0)
+                        .put("delta", new JsonObject().put("content", token))
+                        .put("finish_reason", finishReason)));
+    }
+
+    private static JsonObject usage(int promptTokens, int completionTokens) {
+        return new JsonObject()
+                .put("prompt_tokens", promptTokens)
+                .put("completion_tokens", completionTokens)
+                .put("total_tokens", promptTokens + completionTokens);
+    }
+}
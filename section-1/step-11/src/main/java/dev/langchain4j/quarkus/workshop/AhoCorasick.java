@@ -0,0 +1,202 @@
+package dev.langchain4j.quarkus.workshop;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Immutable Aho-Corasick automaton, finding all the occurrences of a set of patterns in a single pass over the text.
+ * <p>
+ * Matching ignores case and treats any run of whitespace as a single space. Only whole words match: an occurrence
+ * directly preceded or followed by a letter or a digit is ignored.
+ * <p>
+ * The trie is built breadth first from the sorted patterns, so that the children of a node are contiguous and sorted,
+ * and the nodes are stored in a few flat arrays: a transition is a binary search among the children of the current
+ * node, and a million names take about a hundred megabytes.
+ */
+public final class AhoCorasick {
+
+    private static final int ROOT = 0;
+
+    private final String[] patterns;
+    private final int maxLength;
+    // node n has the children firstChild[n] to firstChild[n + 1] - 1, labelled label[child]
+    private final char[] label;
+    private final int[] firstChild;
+    private final int[] fail;
+    // the pattern ending at a node, or -1
+    private final int[] output;
+    // the closest node down the failure chain with an output, or -1
+    private final int[] outputLink;
+
+    public interface MatchHandler {
+
+        /**
+         * @param pattern the matched pattern, normalized
+         * @param start the start of the occurrence in the text, inclusive
+         * @param end the end of the occurrence in the text, exclusive
+         */
+        void onMatch(String pattern, int start, int end);
+    }
+
+    public AhoCorasick(Collection<String> patterns) {
+        this.patterns = patterns.stream()
+                .map(AhoCorasick::normalize)
+                .filter(pattern -> !pattern.isEmpty())
+                .sorted()
+                .distinct()
+                .toArray(String[]::new);
+        this.maxLength = Arrays.stream(this.patterns).mapToInt(String::length).max().orElse(0);
+
+        int capacity = Math.max(16, Arrays.stream(this.patterns).mapToInt(String::length).sum() + 1);
+        char[] label = new char[capacity];
+        int[] firstChild = new int[capacity + 1];
+        int[] parent = new int[capacity];
+        int[] output = new int[capacity];
+        // the range of patterns below each node of the current level
+        int[] from = new int[capacity];
+        int[] to = new int[capacity];
+        from[ROOT] = 0;
+        to[ROOT] = this.patterns.length;
+        output[ROOT] = -1;
+        int nodes = 1;
+        int depth = 0;
+        int levelStart = ROOT;
+        int levelEnd = 1;
+        while (levelStart < levelEnd) {
+            for (int node = levelStart; node < levelEnd; node++) {
+                firstChild[node] = nodes;
+                int i = from[node];
+                // the pattern ending at this node, if any, sorts first
+                if (i < to[node] && this.patterns[i].length() == depth) {
+                    i++;
+                }
+                while (i < to[node]) {
+                    char c = this.patterns[i].charAt(depth);
+                    int j = i + 1;
+                    while (j < to[node] && this.patterns[j].charAt(depth) == c) {
+                        j++;
+                    }
+                    int child = nodes++;
+                    label[child] = c;
+                    parent[child] = node;
+                    from[child] = i;
+                    to[child] = j;
+                    output[child] = this.patterns[i].length() == depth + 1 ? i : -1;
+                    i = j;
+                }
+            }
+            depth++;
+            levelStart = levelEnd;
+            levelEnd = nodes;
+        }
+        firstChild[nodes] = nodes;
+
+        this.label = Arrays.copyOf(label, nodes);
+        this.firstChild = Arrays.copyOf(firstChild, nodes + 1);
+        this.output = Arrays.copyOf(output, nodes);
+        this.fail = new int[nodes];
+        this.outputLink = new int[nodes];
+        outputLink[ROOT] = -1;
+        // the nodes are numbered breadth first: the failure link of a node is always computed before its children's
+        for (int node = 1; node < nodes; node++) {
+            int p = parent[node];
+            int f = ROOT;
+            if (p != ROOT) {
+                f = fail[p];
+                int next;
+                while ((next = child(f, label[node])) < 0 && f != ROOT) {
+                    f = fail[f];
+                }
+                f = Math.max(next, ROOT);
+            }
+            fail[node] = f;
+            outputLink[node] = this.output[f] >= 0 ? f : outputLink[f];
+        }
+    }
+
+    public int size() {
+        return patterns.length;
+    }
+
+    /**
+     * Reports all the occurrences of the patterns in the text, in the order they end.
+     */
+    public void scan(CharSequence text, MatchHandler handler) {
+        if (patterns.length == 0) {
+            return;
+        }
+        // the text index of the last normalized characters, to map the occurrences back to the text
+        int[] positions = new int[maxLength];
+        int normalized = 0;
+        int state = ROOT;
+        boolean space = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                if (space) {
+                    continue;
+                }
+                space = true;
+                c = ' ';
+            } else {
+                space = false;
+                c = Character.toLowerCase(c);
+            }
+            positions[normalized++ % maxLength] = i;
+            int next;
+            while ((next = child(state, c)) < 0 && state != ROOT) {
+                state = fail[state];
+            }
+            state = Math.max(next, ROOT);
+            for (int node = output[state] >= 0 ? state : outputLink[state]; node >= 0; node = outputLink[node]) {
+                String pattern = patterns[output[node]];
+                int start = positions[(normalized - pattern.length()) % maxLength];
+                if (isBoundary(text, start - 1) && isBoundary(text, i + 1)) {
+                    handler.onMatch(pattern, start, i + 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the pattern as matched: lower case, with single spaces
+     */
+    public static String normalize(CharSequence text) {
+        StringBuilder normalized = new StringBuilder(text.length());
+        boolean space = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                if (!space) {
+                    normalized.append(' ');
+                }
+                space = true;
+            } else {
+                normalized.append(Character.toLowerCase(c));
+                space = false;
+            }
+        }
+        return normalized.toString();
+    }
+
+    private int child(int node, char c) {
+        int low = firstChild[node];
+        int high = firstChild[node + 1] - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            char l = label[middle];
+            if (l < c) {
+                low = middle + 1;
+            } else if (l > c) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isBoundary(CharSequence text, int index) {
+        return index < 0 || index >= text.length() || !Character.isLetterOrDigit(text.charAt(index));
+    }
+}
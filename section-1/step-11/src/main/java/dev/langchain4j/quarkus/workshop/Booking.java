@@ -1,17 +1,28 @@
 package dev.langchain4j.quarkus.workshop;
 
 import io.quarkus.hibernate.orm.panache.PanacheEntity;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Transient;
 
 import java.time.LocalDate;
 
 @Entity
+@Cacheable
+@EntityListeners(BookingListener.class)
 public class Booking extends PanacheEntity {
 
-    @ManyToOne
+    // the BookingRepository queries project the fields they need, the customer is only joined
+    @ManyToOne(fetch = FetchType.LAZY)
     Customer customer;
     LocalDate dateFrom;
     LocalDate dateTo;
-    String location; 
+    String location;
+
+    // the location as loaded, to tell the availability of both locations when a booking moves
+    @Transient
+    String loadedLocation;
 }
@@ -0,0 +1,142 @@
+package dev.langchain4j.quarkus.workshop;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+
+/**
+ * Finds the bookings overlapping a date range at a location.
+ * <p>
+ * The {@code booking.period} column of {@code import.sql} holds the dates of a booking as a {@code daterange}, with a
+ * GiST index on the location and the period, so that PostgreSQL finds the overlapping bookings without scanning the
+ * table. The locations queried at least {@code hot-threshold} times also get an {@link IntervalTree} of their
+ * bookings, answering in memory; at most {@code cached-locations} of them, least recently used first out.
+ * <p>
+ * A tree is dropped when a booking of its location changes on this instance, once the change is committed, and in any
+ * case once older than {@code max-age}, which bounds how late the changes committed by the other instances are seen.
+ * The trees are loaded from the primary, in a transaction of their own, as a lagging replica could miss a change
+ * committed right before. The lookups are counted in {@code chat.availability.lookups}, tagged with the source: the
+ * tree, or the database.
+ */
+@ApplicationScoped
+public class BookingAvailability {
+
+    private static final String OVERLAPPING = """
+            select id, dateFrom, dateTo, location from booking
+            where location = :location and period && daterange(:from, :to, '[]')
+            order by dateFrom""";
+    private static final String AT_LOCATION = "select id, dateFrom, dateTo, location from booking where location = :location";
+
+    /**
+     * Fired when a booking is created, updated or deleted.
+     */
+    public record BookingChanged(String location) {
+    }
+
+    @ConfigProperty(name = "customer-support-agent.availability.hot-threshold", defaultValue = "3")
+    int hotThreshold;
+
+    @ConfigProperty(name = "customer-support-agent.availability.cached-locations", defaultValue = "1000")
+    int cachedLocations;
+
+    @ConfigProperty(name = "customer-support-agent.availability.max-age", defaultValue = "PT1M")
+    Duration maxAge;
+
+    private record Tree(IntervalTree bookings, long loadedAt) {
+    }
+
+    private final MeterRegistry registry;
+    private final Map<String, Integer> lookups = new ConcurrentHashMap<>();
+    // any change of any location: a tree loaded while a change was committed is not kept
+    private final AtomicLong changes = new AtomicLong();
+    private final LinkedHashMap<String, Tree> trees = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Tree> eldest) {
+            return size() > cachedLocations;
+        }
+    };
+
+    public BookingAvailability(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * @return the bookings at the location overlapping the range, both ends inclusive, by start date
+     */
+    public List<BookingSummary> overlapping(String location, LocalDate from, LocalDate to) {
+        IntervalTree tree = null;
+        synchronized (trees) {
+            Tree cached = trees.get(location);
+            if (cached != null && System.nanoTime() - cached.loadedAt() < maxAge.toNanos()) {
+                tree = cached.bookings();
+            } else if (cached != null) {
+                trees.remove(location);
+            }
+        }
+        if (tree == null && lookups.merge(location, 1, Integer::sum) >= hotThreshold) {
+            tree = load(location);
+        }
+        if (lookups.size() > 10 * cachedLocations) {
+            // the cold locations are counted again from scratch
+            lookups.clear();
+        }
+        if (tree != null) {
+            registry.counter("chat.availability.lookups", "source", "tree").increment();
+            return tree.overlapping(from, to);
+        }
+        registry.counter("chat.availability.lookups", "source", "database").increment();
+        return query(OVERLAPPING)
+                .setParameter("location", location)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .getResultList();
+    }
+
+    void changed(@Observes(during = TransactionPhase.AFTER_SUCCESS) BookingChanged event) {
+        changes.incrementAndGet();
+        synchronized (trees) {
+            trees.remove(event.location());
+        }
+    }
+
+    private IntervalTree load(String location) {
+        long before = changes.get();
+        long loadedAt = System.nanoTime();
+        // outside of the read-only transaction of the caller, whose session may be on the replica
+        IntervalTree tree = QuarkusTransaction.requiringNew().call(() ->
+                new IntervalTree(query(AT_LOCATION).setParameter("location", location).getResultList()));
+        synchronized (trees) {
+            if (changes.get() == before) {
+                trees.put(location, new Tree(tree, loadedAt));
+                lookups.remove(location);
+            }
+        }
+        return tree;
+    }
+
+    private static NativeQuery<BookingSummary> query(String sql) {
+        return Booking.getEntityManager().unwrap(Session.class)
+                .createNativeQuery(sql, Object[].class)
+                .addScalar("id", Long.class)
+                .addScalar("dateFrom", LocalDate.class)
+                .addScalar("dateTo", LocalDate.class)
+                .addScalar("location", String.class)
+                .setTupleTransformer((tuple, aliases) ->
+                        new BookingSummary((Long) tuple[0], (LocalDate) tuple[1], (LocalDate) tuple[2], (String) tuple[3]));
+    }
+}
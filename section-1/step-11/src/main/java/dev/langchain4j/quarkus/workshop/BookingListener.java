@@ -0,0 +1,44 @@
+package dev.langchain4j.quarkus.workshop;
+
+import jakarta.enterprise.inject.spi.BeanManager;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+import io.quarkus.arc.Arc;
+
+import static dev.langchain4j.quarkus.workshop.BookingAvailability.BookingChanged;
+
+/**
+ * Tells the {@link BookingAvailability} about the changed bookings; it only acts on them once they are committed.
+ * A booking moved to another location changes both. The bulk deletes do not go through the entity listeners, they fire
+ * the event themselves.
+ */
+public class BookingListener {
+
+    @PostLoad
+    void loaded(Booking booking) {
+        booking.loadedLocation = booking.location;
+    }
+
+    @PostPersist
+    @PostRemove
+    void changed(Booking booking) {
+        fire(booking.location);
+    }
+
+    @PostUpdate
+    void updated(Booking booking) {
+        fire(booking.location);
+        if (booking.loadedLocation != null && !booking.loadedLocation.equals(booking.location)) {
+            fire(booking.loadedLocation);
+        }
+        booking.loadedLocation = booking.location;
+    }
+
+    private static void fire(String location) {
+        BeanManager beanManager = Arc.container().beanManager();
+        beanManager.getEvent().select(BookingChanged.class).fire(new BookingChanged(location));
+    }
+}
@@ -3,11 +3,19 @@ package dev.langchain4j.quarkus.workshop;
 import dev.langchain4j.agent.tool.Tool;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
 import jakarta.transaction.Transactional;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.jpa.HibernateHints;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
+import static dev.langchain4j.quarkus.workshop.BookingAvailability.BookingChanged;
 import static dev.langchain4j.quarkus.workshop.Exceptions.BookingCannotBeCancelledException;
 import static dev.langchain4j.quarkus.workshop.Exceptions.BookingNotFoundException;
 import static dev.langchain4j.quarkus.workshop.Exceptions.CustomerNotFoundException;
@@ -15,48 +23,159 @@ import static dev.langchain4j.quarkus.workshop.Exceptions.CustomerNotFoundExcept
 @ApplicationScoped
 public class BookingRepository implements PanacheRepository<Booking> {
 
+    private static final String SUMMARY = "select new dev.langchain4j.quarkus.workshop.BookingSummary("
+            + "b.id, b.dateFrom, b.dateTo, b.location) from Booking b join b.customer c ";
+
+    @ConfigProperty(name = "quarkus.hibernate-orm.multitenant", defaultValue = "NONE")
+    String multitenant;
+
+    private final ToolResults results;
+    private final BookingAvailability availability;
+    private final Event<BookingChanged> changes;
+
+    public BookingRepository(ToolResults results, BookingAvailability availability, Event<BookingChanged> changes) {
+        this.results = results;
+        this.availability = availability;
+        this.changes = changes;
+    }
 
     @Tool("Cancel a booking")
     @Transactional
     public void cancelBooking(long bookingId, String customerFirstName, String customerLastName) {
-        Booking booking;
+        BookingSummary booking;
         try {
-            booking = getBookingDetails(bookingId, customerFirstName, customerLastName);
+            booking = findBooking(bookingId, customerFirstName, customerLastName);
         } catch (BookingNotFoundException e) {
             return;
         }
-        // too late to cancel
-        if (booking.dateFrom.minusDays(11).isBefore(LocalDate.now())) {
+        if (!isCancellable(booking)) {
             throw new BookingCannotBeCancelledException(bookingId);
         }
-        // too short to cancel
-        if (booking.dateTo.minusDays(4).isBefore(booking.dateFrom)) {
-            throw new BookingCannotBeCancelledException(bookingId);
+        // removing the entity evicts it from the second-level cache, and the commit invalidates the cached queries
+        deleteById(bookingId);
+    }
+
+    @Tool("Cancel several bookings of a customer at once, giving the result for each of them")
+    @Transactional
+    public String cancelBookings(List<Long> bookingIds, String customerFirstName, String customerLastName) {
+        Map<Long, BookingSummary> bookings = new HashMap<>();
+        getEntityManager()
+                .createQuery(SUMMARY + "where b.id in ?1 and c.firstName = ?2 and c.lastName = ?3", BookingSummary.class)
+                .setParameter(1, bookingIds)
+                .setParameter(2, customerFirstName)
+                .setParameter(3, customerLastName)
+                .getResultStream()
+                .forEach(booking -> bookings.put(booking.id(), booking));
+        Map<Long, String> outcomes = new LinkedHashMap<>();
+        List<Long> cancelled = new ArrayList<>();
+        for (Long bookingId : bookingIds) {
+            BookingSummary booking = bookings.get(bookingId);
+            if (booking == null) {
+                outcomes.put(bookingId, "not found");
+            } else if (!isCancellable(booking)) {
+                outcomes.put(bookingId, "cannot be cancelled - see terms of use");
+            } else {
+                outcomes.put(bookingId, "cancelled");
+                cancelled.add(bookingId);
+            }
+        }
+        if (!cancelled.isEmpty()) {
+            // the bulk delete evicts the whole booking region of the second-level cache
+            delete("id in ?1", cancelled);
+            // the bulk delete skips the entity listeners
+            cancelled.stream().map(id -> bookings.get(id).location()).distinct()
+                    .forEach(location -> changes.fire(new BookingChanged(location)));
+        }
+        return results.outcomes("cancelBookings", outcomes);
+    }
+
+    static boolean isCancellable(BookingSummary booking) {
+        // too late to cancel
+        if (booking.dateFrom().minusDays(11).isBefore(LocalDate.now())) {
+            return false;
         }
-        delete(booking);
+        // too short to cancel
+        return !booking.dateTo().minusDays(4).isBefore(booking.dateFrom());
     }
 
     @Tool("List booking for a customer")
-    @Transactional
-    public List<Booking> listBookingsForCustomer(String customerName, String customerSurname) {
-        var found = Customer.find("LOWER(firstName) = LOWER(?1) and LOWER(lastName) = LOWER(?2)", customerName, customerSurname).singleResultOptional();
-        if (found.isEmpty()) {
+    @ConcurrentTool
+    @ReadOnlyTransaction
+    public String listBookingsForCustomer(String customerName, String customerSurname) {
+        // LOWER() on both sides matches the customer_name_idx functional index
+        List<BookingSummary> bookings = getEntityManager()
+                .createQuery(SUMMARY + "where LOWER(c.lastName) = LOWER(?2) and LOWER(c.firstName) = LOWER(?1)",
+                        BookingSummary.class)
+                .setParameter(1, customerName)
+                .setParameter(2, customerSurname)
+                .getResultList();
+        if (bookings.isEmpty() && !customerExists(customerName, customerSurname)) {
             throw new CustomerNotFoundException(customerName, customerSurname);
         }
-        return list("customer", found.get());
+        return results.bookings("listBookingsForCustomer", bookings);
     }
 
 
-    @Tool("Get booking details")
-    @Transactional
-    public Booking getBookingDetails(long bookingId, String customerFirstName, String customerLastName) {
-        Booking found = findById(bookingId);
-        if (found == null) {
-            throw new BookingNotFoundException(bookingId);
-        }
-        if (!found.customer.firstName.equals(customerFirstName) || !found.customer.lastName.equals(customerLastName)) {
-            throw new BookingNotFoundException(bookingId);
+    @Tool("List the bookings of a customer overlapping a date range, the dates in the yyyy-MM-dd format")
+    @ConcurrentTool
+    @ReadOnlyTransaction
+    public String listBookingsBetween(String customerFirstName, String customerLastName, String from, String to) {
+        List<BookingSummary> bookings = getEntityManager()
+                .createQuery(SUMMARY + "where LOWER(c.lastName) = LOWER(?2) and LOWER(c.firstName) = LOWER(?1) "
+                        + "and b.dateTo >= ?3 and b.dateFrom <= ?4 order by b.dateFrom", BookingSummary.class)
+                .setParameter(1, customerFirstName)
+                .setParameter(2, customerLastName)
+                .setParameter(3, LocalDate.parse(from))
+                .setParameter(4, LocalDate.parse(to))
+                .getResultList();
+        if (bookings.isEmpty() && !customerExists(customerFirstName, customerLastName)) {
+            throw new CustomerNotFoundException(customerFirstName, customerLastName);
         }
-        return found;
+        return results.bookings("listBookingsBetween", bookings);
+    }
+
+    @Tool("List the bookings at a location overlapping a date range, the dates in the yyyy-MM-dd format, to check the availability")
+    @ConcurrentTool
+    @ReadOnlyTransaction
+    public String checkAvailability(String location, String from, String to) {
+        return results.bookings("checkAvailability",
+                availability.overlapping(location, LocalDate.parse(from), LocalDate.parse(to)));
+    }
+
+    @Tool("Get booking details")
+    @ConcurrentTool
+    @ReadOnlyTransaction
+    public String getBookingDetails(long bookingId, String customerFirstName, String customerLastName) {
+        return results.bookings("getBookingDetails", List.of(findBooking(bookingId, customerFirstName, customerLastName)));
+    }
+
+    private BookingSummary findBooking(long bookingId, String customerFirstName, String customerLastName) {
+        return getEntityManager()
+                .createQuery(SUMMARY + "where b.id = ?1 and c.firstName = ?2 and c.lastName = ?3", BookingSummary.class)
+                .setParameter(1, bookingId)
+                .setParameter(2, customerFirstName)
+                .setParameter(3, customerLastName)
+                .getResultStream()
+                .findFirst()
+                .orElseThrow(() -> new BookingNotFoundException(bookingId));
+    }
+
+    private boolean customerExists(String customerFirstName, String customerLastName) {
+        return getEntityManager()
+                .createQuery("select count(c) from Customer c "
+                        + "where LOWER(c.lastName) = LOWER(?2) and LOWER(c.firstName) = LOWER(?1)", Long.class)
+                .setParameter(1, customerFirstName)
+                .setParameter(2, customerLastName)
+                .setHint(HibernateHints.HINT_CACHEABLE, cacheable())
+                .getSingleResult() > 0;
+    }
+
+    /**
+     * The query cache is only invalidated by the writes of this instance, so only the customer lookup is cached, the
+     * customers being hardly ever removed. A result read from a lagging replica right after a write would be cached as
+     * if it were current, until it expires.
+     */
+    boolean cacheable() {
+        return !("DATABASE".equals(multitenant) && ReadOnlyTransactionInterceptor.inReadOnlyTransaction());
     }
 }
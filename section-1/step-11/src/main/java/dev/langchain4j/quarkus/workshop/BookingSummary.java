@@ -0,0 +1,10 @@
+package dev.langchain4j.quarkus.workshop;
+
+import java.time.LocalDate;
+
+/**
+ * What the agent needs to know about a {@link Booking}, fetched by the {@link BookingRepository} queries instead of
+ * the entity: the customer is already known from the question.
+ */
+public record BookingSummary(long id, LocalDate dateFrom, LocalDate dateTo, String location) {
+}
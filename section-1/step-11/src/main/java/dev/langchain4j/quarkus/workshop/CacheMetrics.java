@@ -0,0 +1,48 @@
+package dev.langchain4j.quarkus.workshop;
+
+import java.util.List;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.quarkus.runtime.StartupEvent;
+
+/**
+ * Exposes the hit ratio of the second-level cache since the start, as the {@code chat.cache.hit.ratio} gauges tagged
+ * with the region: the customers, the bookings, and the query results. The hits and misses themselves are exported
+ * with the Hibernate ORM metrics.
+ */
+@ApplicationScoped
+public class CacheMetrics {
+
+    private static final String QUERY_RESULTS = "default-query-results-region";
+
+    private final SessionFactory sessionFactory;
+    private final MeterRegistry registry;
+
+    public CacheMetrics(SessionFactory sessionFactory, MeterRegistry registry) {
+        this.sessionFactory = sessionFactory;
+        this.registry = registry;
+    }
+
+    void register(@Observes StartupEvent event) {
+        Statistics statistics = sessionFactory.getStatistics();
+        for (String region : List.of(Customer.class.getName(), Booking.class.getName(), QUERY_RESULTS)) {
+            registry.gauge("chat.cache.hit.ratio", Tags.of("region", region), statistics,
+                    s -> ratio(s.getCacheRegionStatistics(region)));
+        }
+    }
+
+    private static double ratio(CacheRegionStatistics region) {
+        if (region == null || region.getHitCount() + region.getMissCount() == 0) {
+            return Double.NaN;
+        }
+        return (double) region.getHitCount() / (region.getHitCount() + region.getMissCount());
+    }
+}
@@ -0,0 +1,19 @@
+package dev.langchain4j.quarkus.workshop;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import jakarta.interceptor.InterceptorBinding;
+
+/**
+ * Marks an AI service method whose model call must be abandoned when the user who asked for it disconnects.
+ *
+ * @see CancelOnDisconnectInterceptor
+ */
+@InterceptorBinding
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CancelOnDisconnect {
+}
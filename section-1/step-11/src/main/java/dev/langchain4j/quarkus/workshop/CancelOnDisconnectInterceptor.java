@@ -0,0 +1,63 @@
+package dev.langchain4j.quarkus.workshop;
+
+import jakarta.annotation.Priority;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.Interceptor;
+import jakarta.interceptor.InvocationContext;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.logging.Log;
+
+import static dev.langchain4j.quarkus.workshop.Exceptions.TurnCancelledException;
+
+/**
+ * Turns the model calls of a cancelled {@link InFlightTurn} into a {@link TurnCancelledException}.
+ * <p>
+ * The interceptor runs inside the fault tolerance one, i.e. once per attempt: a call is not even sent if its turn
+ * has been cancelled in the meantime, and {@code @Retry} aborts on the exception instead of trying again.
+ * <p>
+ * The skipped and aborted calls are counted in {@code chat.model.calls.cancelled}; for the skipped ones, the prompt
+ * tokens they would have cost are estimated and added to {@code chat.model.tokens.saved}.
+ */
+@CancelOnDisconnect
+@Interceptor
+@Priority(Interceptor.Priority.PLATFORM_AFTER + 20)
+public class CancelOnDisconnectInterceptor {
+
+    private final MeterRegistry registry;
+    private final PromptTokenEstimator estimator;
+
+    public CancelOnDisconnectInterceptor(MeterRegistry registry, PromptTokenEstimator estimator) {
+        this.registry = registry;
+        this.estimator = estimator;
+    }
+
+    @AroundInvoke
+    Object cancelOnDisconnect(InvocationContext ctx) throws Exception {
+        InFlightTurn turn = InFlightTurn.current();
+        if (turn == null) {
+            return ctx.proceed();
+        }
+        if (turn.isCancelled()) {
+            registry.counter("chat.model.tokens.saved", "method", ctx.getMethod().getName())
+                    .increment(estimator.estimate(ctx));
+            throw cancelled(ctx);
+        }
+        try {
+            return ctx.proceed();
+        } catch (TurnCancelledException e) {
+            throw e;
+        } catch (Exception e) {
+            if (turn.isCancelled()) {
+                throw cancelled(ctx);
+            }
+            throw e;
+        }
+    }
+
+    private TurnCancelledException cancelled(InvocationContext ctx) {
+        Log.debugf("Cancelled call to %s, the user disconnected", ctx.getMethod().getName());
+        registry.counter("chat.model.calls.cancelled", "method", ctx.getMethod().getName()).increment();
+        return new TurnCancelledException();
+    }
+}
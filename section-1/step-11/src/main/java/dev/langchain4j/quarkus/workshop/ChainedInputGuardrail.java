@@ -0,0 +1,53 @@
+package dev.langchain4j.quarkus.workshop;
+
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.guardrail.InputGuardrail;
+import dev.langchain4j.guardrail.InputGuardrailResult;
+
+/**
+ * An input guardrail run by the {@link InputGuardrailChain}.
+ * <p>
+ * The guardrail declares what a check costs, so that the chain runs the cheap ones first, and returns a
+ * {@link Verdict} instead of a plain success or failure: a definitive pass lets the message through without running
+ * the remaining, more expensive, checks. The guardrail can still be used on its own with {@code @InputGuardrails}.
+ */
+public interface ChainedInputGuardrail extends InputGuardrail {
+
+    Cost cost();
+
+    Verdict check(UserMessage userMessage);
+
+    @Override
+    default InputGuardrailResult validate(UserMessage userMessage) {
+        Verdict verdict = check(userMessage);
+        return verdict.outcome() == Outcome.FAIL ? failure(verdict.reason()) : success();
+    }
+
+    /**
+     * The cost classes, cheapest first.
+     */
+    enum Cost {
+        REGEX,
+        IN_PROCESS_MODEL,
+        REMOTE_LLM
+    }
+
+    enum Outcome {
+        /** The message is fine, no need to run the other checks. */
+        PASS,
+        /** The message is rejected. */
+        FAIL,
+        /** Nothing wrong found, the other checks decide. */
+        UNDECIDED
+    }
+
+    record Verdict(Outcome outcome, String reason) {
+
+        public static final Verdict PASS = new Verdict(Outcome.PASS, null);
+        public static final Verdict UNDECIDED = new Verdict(Outcome.UNDECIDED, null);
+
+        public static Verdict fail(String reason) {
+            return new Verdict(Outcome.FAIL, reason);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package dev.langchain4j.quarkus.workshop;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntity;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+import java.time.Instant;
+
+/**
+ * One message of a conversation; rows are only ever appended, in {@code seq} order.
+ */
+@Entity
+@Table(indexes = {
+        @Index(columnList = "sessionId, seq", unique = true),
+        @Index(columnList = "createdAt")
+})
+public class ChatMessageEntry extends PanacheEntity {
+
+    @Column(length = 36, nullable = false)
+    String sessionId;
+    int seq;
+    @Column(columnDefinition = "text", nullable = false)
+    String message;
+    Instant createdAt;
+}
@@ -0,0 +1,148 @@
+package dev.langchain4j.quarkus.workshop;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.SessionScoped;
+import jakarta.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * The inbound messages of a single WebSocket connection.
+ * <p>
+ * Messages are handled on virtual threads, so two messages of the same connection may be received concurrently. They
+ * are queued in arrival order in a bounded queue, and only one thread at a time drains it, which guarantees that the
+ * agent sees the messages of a session strictly in order.
+ * <p>
+ * Users often split a single request over a few quick messages. When coalescing is enabled, the messages waiting in
+ * the queue when a turn starts, plus those arriving within the coalescing window of each other, are merged into a
+ * single agent turn. Each merged message saves a prompt injection check and an answer from the model, and is counted
+ * in {@code chat.messages.coalesced}.
+ */
+@SessionScoped
+public class ChatSession {
+
+    @ConfigProperty(name = "customer-support-agent.session-queue-size", defaultValue = "8")
+    int queueSize;
+
+    @ConfigProperty(name = "customer-support-agent.coalescing.enabled", defaultValue = "false")
+    boolean coalescing;
+
+    @ConfigProperty(name = "customer-support-agent.coalescing.window", defaultValue = "PT0S")
+    Duration coalescingWindow;
+
+    @Inject
+    MeterRegistry registry;
+
+    private BlockingQueue<String> inbound;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private volatile InFlightTurn turn;
+    private volatile boolean closed;
+    private String id;
+
+    @PostConstruct
+    void init() {
+        inbound = new ArrayBlockingQueue<>(queueSize);
+    }
+
+    /**
+     * @return the id of the conversation, used as the memory id of the agent
+     */
+    public String id() {
+        return id;
+    }
+
+    void id(String id) {
+        this.id = id;
+    }
+
+    /**
+     * Queues a message, unless the queue is full.
+     *
+     * @return {@code false} if the message has been rejected
+     */
+    public boolean offer(String message) {
+        return !closed && inbound.offer(message);
+    }
+
+    /**
+     * Handles the queued messages in order, unless another thread is already doing it: in this case the message just
+     * queued by the caller will be handled by that thread.
+     */
+    public void drain(Consumer<String> handler) {
+        while (draining.compareAndSet(false, true)) {
+            try {
+                String message;
+                while (!closed && (message = next()) != null) {
+                    InFlightTurn current = InFlightTurn.begin();
+                    turn = current;
+                    // published before checking: a close() that has not seen the turn has already set the flag
+                    if (closed) {
+                        turn = null;
+                        current.end();
+                        break;
+                    }
+                    try {
+                        handler.accept(message);
+                    } finally {
+                        turn = null;
+                        current.end();
+                    }
+                }
+            } finally {
+                draining.set(false);
+            }
+            // a message may have been queued after the last poll but before releasing the flag
+            if (closed || inbound.isEmpty()) {
+                return;
+            }
+        }
+    }
+
+    private String next() {
+        String first = inbound.poll();
+        if (first == null || !coalescing) {
+            return first;
+        }
+        StringBuilder merged = new StringBuilder(first);
+        int count = 1;
+        try {
+            String more;
+            // wait for a pause of the user, but do not merge more than a full queue
+            while (count < queueSize && (more = inbound.poll(coalescingWindow.toNanos(), TimeUnit.NANOSECONDS)) != null) {
+                merged.append('\n').append(more);
+                count++;
+            }
+        } catch (InterruptedException e) {
+            // stop merging, the interrupt must not cancel the turn about to start
+        }
+        if (count > 1) {
+            registry.counter("chat.messages.coalesced").increment(count - 1);
+        }
+        return merged.toString();
+    }
+
+    /**
+     * Drops the queued messages and cancels the turn in flight, if any.
+     */
+    public void close() {
+        closed = true;
+        inbound.clear();
+        InFlightTurn current = turn;
+        if (current != null) {
+            current.cancel();
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+}
@@ -0,0 +1,20 @@
+package dev.langchain4j.quarkus.workshop;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import jakarta.interceptor.InterceptorBinding;
+
+/**
+ * Marks a read-only tool, which can run concurrently with the other tool calls requested in the same assistant
+ * message.
+ *
+ * @see ConcurrentToolCalls
+ */
+@InterceptorBinding
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ConcurrentTool {
+}
@@ -0,0 +1,217 @@
+package dev.langchain4j.quarkus.workshop;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.inject.Any;
+import jakarta.enterprise.inject.spi.Bean;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import dev.langchain4j.agent.tool.Tool;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.model.chat.listener.ChatModelListener;
+import dev.langchain4j.model.chat.listener.ChatModelResponseContext;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.arc.Arc;
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.StartupEvent;
+
+/**
+ * Runs the independent tool calls of an assistant message concurrently.
+ * <p>
+ * The AI service executes the tool calls requested by the model one after the other. When a response of the model
+ * requests several {@link ConcurrentTool} calls, they are all started right away on virtual threads, at most
+ * {@code tools.max-concurrency} at a time for the message, and the {@link ConcurrentToolInterceptor} hands their
+ * results over as the AI service gets to them: the results are still returned in the requested order, and the tool
+ * calls of the message take about as long as the slowest one instead of their sum.
+ * <p>
+ * The calls started ahead belong to the {@link InFlightTurn} of the response, and are matched to the AI service calls
+ * of the same turn by tool and arguments, which is safe as the concurrent tools are read-only. The identical calls of
+ * a message are matched in the requested order, as the tool methods do not see the id of the tool request, and a
+ * hedged duplicate of a response does not start its calls again. The calls that are not picked up are cancelled when
+ * the turn ends or is cancelled. The calls started ahead are counted in {@code chat.tool.calls.concurrent}, tagged
+ * with the tool.
+ */
+@ApplicationScoped
+public class ConcurrentToolCalls implements ChatModelListener {
+
+    private static final ThreadLocal<Boolean> STARTING = new ThreadLocal<>();
+
+    @ConfigProperty(name = "customer-support-agent.tools.max-concurrency", defaultValue = "4")
+    int maxConcurrency;
+
+    private record Call(Method method, List<Object> arguments) {
+    }
+
+    /**
+     * The calls started ahead in a turn.
+     */
+    private static class TurnCalls {
+        private final Map<Call, Deque<Future<Object>>> results = new HashMap<>();
+        private final Map<Call, Integer> requested = new HashMap<>();
+        private boolean done;
+    }
+
+    private final ObjectMapper mapper;
+    private final MeterRegistry registry;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, Method> tools = new HashMap<>();
+    private final Map<InFlightTurn, TurnCalls> turns = new ConcurrentHashMap<>();
+
+    public ConcurrentToolCalls(ObjectMapper mapper, MeterRegistry registry) {
+        this.mapper = mapper;
+        this.registry = registry;
+    }
+
+    void findTools(@Observes StartupEvent event) {
+        for (Bean<?> bean : Arc.container().beanManager().getBeans(Object.class, Any.Literal.INSTANCE)) {
+            for (Method method : bean.getBeanClass().getDeclaredMethods()) {
+                Tool tool = method.getAnnotation(Tool.class);
+                if (tool != null && (method.isAnnotationPresent(ConcurrentTool.class)
+                        || bean.getBeanClass().isAnnotationPresent(ConcurrentTool.class))) {
+                    tools.put(tool.name().isEmpty() ? method.getName() : tool.name(), method);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * @return whether the current thread is running a call started ahead
+     */
+    static boolean isStarting() {
+        return STARTING.get() != null;
+    }
+
+    /**
+     * @return the result of the call if it has been started ahead, or {@code null}
+     */
+    Future<Object> take(Method method, Object[] arguments) {
+        InFlightTurn turn = InFlightTurn.current();
+        TurnCalls calls = turn == null ? null : turns.get(turn);
+        if (calls == null) {
+            return null;
+        }
+        synchronized (calls) {
+            Deque<Future<Object>> results = calls.results.get(new Call(method, Arrays.asList(arguments)));
+            return results == null ? null : results.poll();
+        }
+    }
+
+    @Override
+    public void onResponse(ChatModelResponseContext responseContext) {
+        InFlightTurn turn = InFlightTurn.current();
+        AiMessage message = responseContext.chatResponse().aiMessage();
+        if (turn == null || message == null || !message.hasToolExecutionRequests()) {
+            return;
+        }
+        List<Call> calls = new ArrayList<>();
+        for (ToolExecutionRequest request : message.toolExecutionRequests()) {
+            Method method = tools.get(request.name());
+            Call call = method == null ? null : call(method, request.arguments());
+            if (call != null) {
+                calls.add(call);
+            }
+        }
+        if (calls.size() < 2) {
+            return;
+        }
+        TurnCalls created = new TurnCalls();
+        TurnCalls turnCalls = turns.putIfAbsent(turn, created);
+        if (turnCalls == null) {
+            turnCalls = created;
+            turn.onDone(() -> cancel(turn));
+        }
+        Semaphore permits = new Semaphore(maxConcurrency);
+        Map<Call, Integer> seen = new HashMap<>();
+        synchronized (turnCalls) {
+            if (turnCalls.done) {
+                return;
+            }
+            for (Call call : calls) {
+                int nth = seen.merge(call, 1, Integer::sum);
+                if (nth <= turnCalls.requested.getOrDefault(call, 0)) {
+                    // already started for another response of the turn
+                    continue;
+                }
+                turnCalls.requested.put(call, nth);
+                registry.counter("chat.tool.calls.concurrent", "tool", call.method().getName()).increment();
+                turnCalls.results.computeIfAbsent(call, c -> new ArrayDeque<>())
+                        .add(executor.submit(turn.fork(() -> run(call, permits))));
+            }
+        }
+    }
+
+    private void cancel(InFlightTurn turn) {
+        TurnCalls calls = turns.remove(turn);
+        if (calls == null) {
+            return;
+        }
+        synchronized (calls) {
+            calls.done = true;
+            calls.results.values().forEach(results -> results.forEach(result -> result.cancel(true)));
+            calls.results.clear();
+        }
+    }
+
+    private Object run(Call call, Semaphore permits) throws Exception {
+        permits.acquire();
+        STARTING.set(Boolean.TRUE);
+        try {
+            Object bean = Arc.container().instance(call.method().getDeclaringClass()).get();
+            return call.method().invoke(bean, call.arguments().toArray());
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        } finally {
+            STARTING.remove();
+            permits.release();
+        }
+    }
+
+    private Call call(Method method, String arguments) {
+        try {
+            JsonNode json = mapper.readTree(arguments);
+            List<Object> values = new ArrayList<>();
+            for (Parameter parameter : method.getParameters()) {
+                JsonNode value = json.get(parameter.getName());
+                if (value == null) {
+                    return null;
+                }
+                values.add(mapper.treeToValue(value, parameter.getType()));
+            }
+            return new Call(method, values);
+        } catch (Exception e) {
+            // the AI service reports the invalid arguments to the model when it gets to the call
+            Log.debugf("Not starting %s ahead: %s", method.getName(), e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package dev.langchain4j.quarkus.workshop;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import jakarta.annotation.Priority;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.Interceptor;
+import jakarta.interceptor.InvocationContext;
+
+import static dev.langchain4j.quarkus.workshop.Exceptions.TurnCancelledException;
+
+/**
+ * Answers a {@link ConcurrentTool} call with the result started ahead by {@link ConcurrentToolCalls}, if any. It runs
+ * before the transaction interceptor, so a call already done does not open a transaction for nothing.
+ */
+@ConcurrentTool
+@Interceptor
+@Priority(Interceptor.Priority.PLATFORM_BEFORE + 100)
+public class ConcurrentToolInterceptor {
+
+    private final ConcurrentToolCalls calls;
+
+    public ConcurrentToolInterceptor(ConcurrentToolCalls calls) {
+        this.calls = calls;
+    }
+
+    @AroundInvoke
+    Object answer(InvocationContext ctx) throws Exception {
+        Future<Object> started = ConcurrentToolCalls.isStarting() ? null : calls.take(ctx.getMethod(), ctx.getParameters());
+        if (started == null) {
+            return ctx.proceed();
+        }
+        try {
+            return started.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            started.cancel(true);
+            InFlightTurn turn = InFlightTurn.current();
+            if (turn != null && turn.isCancelled()) {
+                throw new TurnCancelledException();
+            }
+            throw new IllegalStateException("Interrupted while waiting for the tool", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -1,11 +1,20 @@
 package dev.langchain4j.quarkus.workshop;
 
 import io.quarkus.hibernate.orm.panache.PanacheEntity;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
+import jakarta.persistence.Transient;
 
 @Entity
+@Cacheable
+@EntityListeners(CustomerListener.class)
 public class Customer extends PanacheEntity {
 
     String firstName;
     String lastName;
+
+    // the name as known to the PiiDictionary
+    @Transient
+    String indexedName;
 }
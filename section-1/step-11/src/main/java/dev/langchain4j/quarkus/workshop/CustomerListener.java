@@ -0,0 +1,47 @@
+package dev.langchain4j.quarkus.workshop;
+
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+import io.quarkus.arc.Arc;
+
+/**
+ * Keeps the {@link PiiDictionary} in sync with the customers. The changes are applied when flushed, before the
+ * commit: a rolled back change leaves a name that is not there, which is only redacted for nothing.
+ */
+public class CustomerListener {
+
+    @PostLoad
+    void loaded(Customer customer) {
+        customer.indexedName = PiiDictionary.fullName(customer);
+    }
+
+    @PostPersist
+    void persisted(Customer customer) {
+        customer.indexedName = PiiDictionary.fullName(customer);
+        dictionary().added(customer.indexedName);
+    }
+
+    @PostUpdate
+    void updated(Customer customer) {
+        String name = PiiDictionary.fullName(customer);
+        if (!name.equals(customer.indexedName)) {
+            if (customer.indexedName != null) {
+                dictionary().removed(customer.indexedName);
+            }
+            dictionary().added(name);
+            customer.indexedName = name;
+        }
+    }
+
+    @PostRemove
+    void removed(Customer customer) {
+        dictionary().removed(customer.indexedName != null ? customer.indexedName : PiiDictionary.fullName(customer));
+    }
+
+    private static PiiDictionary dictionary() {
+        return Arc.container().instance(PiiDictionary.class).get();
+    }
+}
@@ -1,45 +1,69 @@
 package dev.langchain4j.quarkus.workshop;
 
 import dev.langchain4j.service.guardrail.InputGuardrails;
-import jakarta.enterprise.context.SessionScoped;
+import dev.langchain4j.service.guardrail.OutputGuardrails;
+import jakarta.enterprise.context.ApplicationScoped;
 
 import org.eclipse.microprofile.faulttolerance.ExecutionContext;
 import org.eclipse.microprofile.faulttolerance.Fallback;
 import org.eclipse.microprofile.faulttolerance.FallbackHandler;
-import org.eclipse.microprofile.faulttolerance.Retry;
 import org.eclipse.microprofile.faulttolerance.Timeout;
 
+import dev.langchain4j.service.MemoryId;
 import dev.langchain4j.service.SystemMessage;
+import dev.langchain4j.service.UserMessage;
 import io.quarkiverse.langchain4j.RegisterAiService;
 import io.quarkiverse.langchain4j.ToolBox;
+import io.smallrye.mutiny.Multi;
 
-@SessionScoped
-@RegisterAiService
+import static dev.langchain4j.quarkus.workshop.Exceptions.ModelOverloadedException;
+import static dev.langchain4j.quarkus.workshop.Exceptions.TurnCancelledException;
+
+@ApplicationScoped
+@RegisterAiService(chatLanguageModelSupplier = HedgingChatModel.ModelSupplier.class)
 public interface CustomerSupportAgent {
 
-    @SystemMessage("""
+    /**
+     * The static instructions, byte-identical on every call so that the provider can cache them as a prompt prefix:
+     * the dynamic values, such as the current date, are added at the end of the user message by the
+     * {@link RagRetriever}.
+     */
+    String SYSTEM_MESSAGE = """
             You are a customer support agent of a car rental company 'Miles of Smiles'.
             You are friendly, polite and concise.
             If the question is unrelated to car rental, you should politely redirect the customer to the right department.
             
             When calling tools or functions, strictly use JSON objects,
             do not wrap in quotes or use plain strings.
-            
-            Today is {current_date}.
-            """)
-    @InputGuardrails(PromptInjectionGuard.class)
-//    @ToolBox(BookingRepository.class)
+            """;
+
+    @SystemMessage(SYSTEM_MESSAGE)
+    @InputGuardrails(InputGuardrailChain.class)
+    @OutputGuardrails(PiiRedactionGuard.class)
+//    @ToolBox(BookingRepository.class) // or ReactiveBookingRepository.class
     @Timeout(120000)
-    @Retry(maxRetries = 3, delay = 100)
-    @Fallback(CustomerSupportAgentFallback.class)
-    String chat(String userMessage);
+    @Fallback(value = CustomerSupportAgentFallback.class, skipOn = TurnCancelledException.class)
+    @CancelOnDisconnect
+    @LimitModelCalls
+    String chat(@MemoryId String sessionId, @UserMessage String userMessage);
+
+    /**
+     * Same as {@link #chat(String, String)}, token by token. A failed stream is not retried, part of the answer has
+     * already been sent to the user.
+     */
+    @SystemMessage(SYSTEM_MESSAGE)
+    @InputGuardrails(InputGuardrailChain.class)
+    @CancelOnDisconnect
+    @LimitModelCalls
+    Multi<String> streamChat(@MemoryId String sessionId, @UserMessage String userMessage);
 
     public static class CustomerSupportAgentFallback implements FallbackHandler<String> {
 
         private static final String EMPTY_RESPONSE = "Failed to get a response from the AI Model. Are you sure it's up and running, and configured correctly?";
+        private static final String OVERLOADED_RESPONSE = "We are experiencing a high load at the moment. Please try again in a few minutes.";
         @Override
         public String handle(ExecutionContext context) {
-            return EMPTY_RESPONSE;
+            return context.getFailure() instanceof ModelOverloadedException ? OVERLOADED_RESPONSE : EMPTY_RESPONSE;
         }
     
     }
@@ -2,33 +2,124 @@ package dev.langchain4j.quarkus.workshop;
 
 import dev.langchain4j.guardrail.InputGuardrailException;
 import io.quarkus.logging.Log;
+import io.quarkus.websockets.next.OnClose;
 import io.quarkus.websockets.next.OnOpen;
 import io.quarkus.websockets.next.OnTextMessage;
 import io.quarkus.websockets.next.WebSocket;
+import io.quarkus.websockets.next.WebSocketConnection;
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import io.smallrye.mutiny.Multi;
 
-import io.quarkiverse.langchain4j.runtime.aiservice.GuardrailException;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import static dev.langchain4j.quarkus.workshop.Exceptions.ModelOverloadedException;
+import static dev.langchain4j.quarkus.workshop.Exceptions.TurnCancelledException;
 
 @WebSocket(path = "/customer-support-agent")
 public class CustomerSupportAgentWebSocket {
 
+    /**
+     * Prefix of the message handing out the session token; the client presents it on reconnection as the
+     * {@code resume} query parameter, to get its conversation back.
+     */
+    static final String SESSION_TOKEN_PREFIX = "session-token:";
+
     private final CustomerSupportAgent customerSupportAgent;
+    private final ChatSession session;
+    private final SessionMemoryStore memories;
+    private final StreamingOutputGuardrails outputGuardrails;
+
+    @ConfigProperty(name = "customer-support-agent.streaming.enabled", defaultValue = "false")
+    boolean streaming;
 
-    public CustomerSupportAgentWebSocket(CustomerSupportAgent customerSupportAgent) {
+    public CustomerSupportAgentWebSocket(CustomerSupportAgent customerSupportAgent, ChatSession session,
+                                         SessionMemoryStore memories, StreamingOutputGuardrails outputGuardrails) {
         this.customerSupportAgent = customerSupportAgent;
+        this.session = session;
+        this.memories = memories;
+        this.outputGuardrails = outputGuardrails;
     }
 
     @OnOpen
-    public String onOpen() {
-        return "Welcome to Miles of Smiles! How can I help you today?";
+    public String onOpen(WebSocketConnection connection) {
+        String token = resumeToken(connection.handshakeRequest().query());
+        boolean resumed = token != null && memories.resume(token);
+        session.id(resumed ? token : memories.newSessionId());
+        connection.sendTextAndAwait(SESSION_TOKEN_PREFIX + session.id());
+        return resumed
+                ? "Welcome back! Let's continue where we left off."
+                : "Welcome to Miles of Smiles! How can I help you today?";
     }
 
     @OnTextMessage
-    public String onTextMessage(String message) {
+    @RunOnVirtualThread
+    public void onTextMessage(String message, WebSocketConnection connection) {
+        if (!session.offer(message)) {
+            connection.sendTextAndAwait("You are sending messages faster than I can answer. Please wait for my reply.");
+            return;
+        }
+        session.drain(next -> {
+            String answer;
+            try {
+                answer = answer(next, connection);
+            } finally {
+                memories.endTurn(session.id());
+            }
+            send(connection, answer);
+        });
+    }
+
+    @OnClose
+    public void onClose() {
+        // nobody will read the answer anymore, stop paying for it
+        session.close();
+        if (session.id() != null) {
+            memories.park(session.id());
+        }
+    }
+
+    private static String resumeToken(String query) {
+        if (query == null) {
+            return null;
+        }
+        for (String parameter : query.split("&")) {
+            if (parameter.startsWith("resume=")) {
+                return parameter.substring("resume=".length());
+            }
+        }
+        return null;
+    }
+
+    private void send(WebSocketConnection connection, String text) {
+        if (text != null && !session.isClosed()) {
+            connection.sendTextAndAwait(text);
+        }
+    }
+
+    /**
+     * Sends the streamed answer as it comes, through the streaming output guardrails.
+     */
+    private String stream(String message, WebSocketConnection connection) {
+        Multi<String> answer = outputGuardrails.guard(session.id(), customerSupportAgent.streamChat(session.id(), message));
+        InFlightTurn turn = InFlightTurn.current();
+        for (String token : (turn == null ? answer : turn.track(answer)).subscribe().asIterable()) {
+            send(connection, token);
+        }
+        return null;
+    }
+
+    private String answer(String message, WebSocketConnection connection) {
         try {
-            return customerSupportAgent.chat(message);
+            return streaming ? stream(message, connection) : customerSupportAgent.chat(session.id(), message);
         } catch (InputGuardrailException e) {
             Log.errorf(e, "Error calling the LLM: %s", e.getMessage());
             return "Sorry, I am unable to process your request at the moment. It's not something I'm allowed to do.";
+        } catch (TurnCancelledException e) {
+            Log.debugf("Turn cancelled: %s", e.getMessage());
+            return null;
+        } catch (ModelOverloadedException e) {
+            Log.warnf("Error calling the LLM: %s", e.getMessage());
+            return "We are experiencing a high load at the moment. Please try again in a few minutes.";
         } catch (Exception e) {
             Log.errorf(e, "Error calling the LLM: %s", e.getMessage());
             return "I ran into some problems. Please try again.";
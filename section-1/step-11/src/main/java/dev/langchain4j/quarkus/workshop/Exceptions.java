@@ -18,4 +18,16 @@ public class Exceptions {
             super("Booking " + bookingId + " not found");
         }
     }
+
+    public static class ModelOverloadedException extends RuntimeException {
+        public ModelOverloadedException() {
+            super("Too many concurrent model calls");
+        }
+    }
+
+    public static class TurnCancelledException extends RuntimeException {
+        public TurnCancelledException() {
+            super("The user disconnected, the turn has been cancelled");
+        }
+    }
 }
@@ -0,0 +1,224 @@
+package dev.langchain4j.quarkus.workshop;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Typed;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.faulttolerance.Retry;
+
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkiverse.langchain4j.RegisterAiService;
+import io.quarkus.arc.Arc;
+import io.smallrye.faulttolerance.api.ExponentialBackoff;
+
+import static dev.langchain4j.quarkus.workshop.Exceptions.TurnCancelledException;
+
+/**
+ * Hedges the calls to the chat model: when a call has not answered within the configured percentile of the recent
+ * latencies, a second identical request is sent, the first answer wins and the other call is cancelled.
+ * <p>
+ * Hedging doubles the load on the provider when it is slow for everyone, so the hedges are throttled: every call earns
+ * a fraction of a hedge, {@code max-percent} / 100, up to a small burst, and a hedge is only sent if one has been
+ * earned. The hedges sent, the ones that won and the ones throttled are counted in {@code chat.model.hedges}, tagged
+ * with the outcome.
+ * <p>
+ * The calls are blocking, so the first answer is the complete response.
+ */
+@ApplicationScoped
+@Typed(HedgingChatModel.class)
+public class HedgingChatModel implements ChatModel {
+
+    private static final int WINDOW = 1_000;
+    private static final double MAX_BURST = 10;
+
+    @ConfigProperty(name = "customer-support-agent.hedging.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "customer-support-agent.hedging.percentile", defaultValue = "95")
+    double percentile;
+
+    @ConfigProperty(name = "customer-support-agent.hedging.max-percent", defaultValue = "5")
+    double maxPercent;
+
+    @ConfigProperty(name = "customer-support-agent.hedging.min-delay", defaultValue = "PT1S")
+    Duration minDelay;
+
+    private final ChatModel delegate;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Counter sent;
+    private final Counter won;
+    private final Counter throttled;
+    // the latencies of the last calls, in milliseconds
+    private final long[] latencies = new long[WINDOW];
+    private long calls;
+    private long threshold = -1;
+    private double budget;
+
+    public HedgingChatModel(ChatModel delegate, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.sent = registry.counter("chat.model.hedges", "outcome", "sent");
+        this.won = registry.counter("chat.model.hedges", "outcome", "won");
+        this.throttled = registry.counter("chat.model.hedges", "outcome", "throttled");
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Retries the failed model calls only, instead of the whole agent turn: the prompt injection check, the retrieval
+     * and the tool calls already done in the turn are not repeated. A call of a cancelled turn fails with a
+     * {@link TurnCancelledException}, whatever the HTTP client threw when interrupted, so that it is not retried.
+     */
+    @Override
+    @Retry(maxRetries = 3, delay = 100, jitter = 50, abortOn = TurnCancelledException.class)
+    @ExponentialBackoff
+    public ChatResponse chat(ChatRequest request) {
+        InFlightTurn turn = InFlightTurn.current();
+        if (turn != null && turn.isCancelled()) {
+            throw new TurnCancelledException();
+        }
+        try {
+            return enabled ? hedged(request, turn) : delegate.chat(request);
+        } catch (RuntimeException e) {
+            if (turn != null && turn.isCancelled() && !(e instanceof TurnCancelledException)) {
+                throw new TurnCancelledException();
+            }
+            throw e;
+        }
+    }
+
+    private ChatResponse hedged(ChatRequest request, InFlightTurn turn) {
+        long delay = hedgeDelay();
+        CompletionService<ChatResponse> completion = new ExecutorCompletionService<>(executor);
+        // the calls belong to the turn, for the listeners of the model
+        Callable<ChatResponse> call = () -> timed(request);
+        Callable<ChatResponse> task = turn == null ? call : turn.fork(call);
+        Future<ChatResponse> primary = completion.submit(task);
+        Future<ChatResponse> hedge = null;
+        try {
+            if (delay < 0) {
+                return primary.get();
+            }
+            try {
+                return primary.get(delay, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (!spendHedge()) {
+                    throttled.increment();
+                    return primary.get();
+                }
+            }
+            sent.increment();
+            hedge = completion.submit(task);
+            Future<ChatResponse> first = completion.take();
+            try {
+                ChatResponse response = first.get();
+                if (first == hedge) {
+                    won.increment();
+                }
+                return response;
+            } catch (ExecutionException e) {
+                // the other call may still succeed
+                return completion.take().get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (turn != null && turn.isCancelled()) {
+                throw new TurnCancelledException();
+            }
+            throw new IllegalStateException("Interrupted while waiting for the model", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            primary.cancel(true);
+            if (hedge != null) {
+                hedge.cancel(true);
+            }
+        }
+    }
+
+    @Override
+    public ChatResponse doChat(ChatRequest request) {
+        return chat(request);
+    }
+
+    @Override
+    public ChatRequestParameters defaultRequestParameters() {
+        return delegate.defaultRequestParameters();
+    }
+
+    @Override
+    public Set<Capability> supportedCapabilities() {
+        return delegate.supportedCapabilities();
+    }
+
+    private ChatResponse timed(ChatRequest request) {
+        long start = System.nanoTime();
+        ChatResponse response = delegate.chat(request);
+        record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return response;
+    }
+
+    private synchronized void record(long latency) {
+        latencies[(int) (calls++ % WINDOW)] = latency;
+        budget = Math.min(MAX_BURST, budget + maxPercent / 100);
+        // the percentile is recomputed every 50 calls, sorting on every call is not worth it
+        if (calls % 50 == 0) {
+            long[] sorted = Arrays.copyOf(latencies, (int) Math.min(calls, WINDOW));
+            Arrays.sort(sorted);
+            int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+            threshold = sorted[Math.max(0, rank - 1)];
+        }
+    }
+
+    /**
+     * @return how long to wait before hedging, or -1 while there are not enough samples
+     */
+    private synchronized long hedgeDelay() {
+        return threshold < 0 ? -1 : Math.max(threshold, minDelay.toMillis());
+    }
+
+    private synchronized boolean spendHedge() {
+        if (budget < 1) {
+            return false;
+        }
+        budget--;
+        return true;
+    }
+
+    /**
+     * Hands the hedging model over to the agent, see {@link RegisterAiService#chatLanguageModelSupplier()}.
+     */
+    public static class ModelSupplier implements Supplier<ChatModel> {
+
+        @Override
+        public ChatModel get() {
+            return Arc.container().instance(HedgingChatModel.class).get();
+        }
+    }
+}
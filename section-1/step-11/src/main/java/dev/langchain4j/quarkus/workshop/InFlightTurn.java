@@ -0,0 +1,104 @@
+package dev.langchain4j.quarkus.workshop;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.subscription.Cancellable;
+
+/**
+ * The work done by the agent to answer one user message, bound to the (virtual) thread running it.
+ * <p>
+ * Cancelling a turn interrupts its thread, which aborts a blocking model call waiting on the HTTP client, and cancels
+ * the subscriptions of the streamed model calls registered with {@link #track(Multi)}, which closes their HTTP
+ * streams. The model calls annotated with {@link CancelOnDisconnect} check the turn before and after running, so that
+ * the remaining calls of the turn, including retries, are skipped.
+ */
+public class InFlightTurn {
+
+    private static final ThreadLocal<InFlightTurn> CURRENT = new ThreadLocal<>();
+
+    private final Thread thread;
+    private final List<Cancellable> streams = new CopyOnWriteArrayList<>();
+    private final List<Runnable> cleanups = new CopyOnWriteArrayList<>();
+    private volatile boolean cancelled;
+    private volatile boolean ended;
+
+    private InFlightTurn(Thread thread) {
+        this.thread = thread;
+    }
+
+    /**
+     * Starts a turn on the current thread.
+     */
+    static InFlightTurn begin() {
+        InFlightTurn turn = new InFlightTurn(Thread.currentThread());
+        CURRENT.set(turn);
+        return turn;
+    }
+
+    /**
+     * @return the turn running on the current thread, or {@code null} if none
+     */
+    static InFlightTurn current() {
+        return CURRENT.get();
+    }
+
+    void end() {
+        ended = true;
+        CURRENT.remove();
+        cleanups.forEach(Runnable::run);
+        // do not leak a cancellation to whatever runs next on this thread
+        Thread.interrupted();
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    void cancel() {
+        cancelled = true;
+        streams.forEach(Cancellable::cancel);
+        cleanups.forEach(Runnable::run);
+        thread.interrupt();
+    }
+
+    /**
+     * Runs the cleanup when the turn ends or is cancelled, right away if it already has. The cleanup may run twice, for
+     * a turn cancelled then ended.
+     */
+    void onDone(Runnable cleanup) {
+        cleanups.add(cleanup);
+        if (ended || cancelled) {
+            cleanup.run();
+        }
+    }
+
+    /**
+     * Wraps a task this turn hands over to another thread, so that the model calls it makes belong to the turn. The
+     * forking thread is the one interrupted on cancellation: it has to cancel the task.
+     */
+    <T> Callable<T> fork(Callable<T> task) {
+        return () -> {
+            CURRENT.set(this);
+            try {
+                return task.call();
+            } finally {
+                CURRENT.remove();
+            }
+        };
+    }
+
+    /**
+     * Ties a streamed model response to this turn, so that cancelling the turn cancels the stream.
+     */
+    public <T> Multi<T> track(Multi<T> stream) {
+        return stream.onSubscription().invoke(subscription -> {
+            streams.add(subscription::cancel);
+            if (cancelled) {
+                subscription.cancel();
+            }
+        });
+    }
+}
@@ -0,0 +1,171 @@
+package dev.langchain4j.quarkus.workshop;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Any;
+import jakarta.enterprise.inject.Instance;
+
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.guardrail.InputGuardrail;
+import dev.langchain4j.guardrail.InputGuardrailResult;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import static dev.langchain4j.quarkus.workshop.ChainedInputGuardrail.Cost;
+import static dev.langchain4j.quarkus.workshop.ChainedInputGuardrail.Outcome;
+import static dev.langchain4j.quarkus.workshop.ChainedInputGuardrail.Verdict;
+import static dev.langchain4j.quarkus.workshop.Exceptions.TurnCancelledException;
+
+/**
+ * Runs all the {@link ChainedInputGuardrail} beans, cheapest cost class first.
+ * <p>
+ * The chain stops at the first tier giving a definitive verdict: a failure rejects the message, a pass accepts it
+ * without running the more expensive tiers. The guardrails of a tier are independent, so when there are several of
+ * them they run in parallel, on virtual threads bound to the current {@link InFlightTurn}: a failure cancels the
+ * others, while a pass has to wait for them as any of them may still fail. Regular expressions are cheaper to run
+ * than to fork, so they always run in sequence.
+ * <p>
+ * Each check is timed in {@code chat.guardrail}, tagged with the guardrail and its verdict; the checks skipped by an
+ * early exit are counted in {@code chat.guardrail.skipped}.
+ */
+@ApplicationScoped
+public class InputGuardrailChain implements InputGuardrail {
+
+    private final MeterRegistry registry;
+    private final List<List<Link>> tiers = new ArrayList<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public InputGuardrailChain(@Any Instance<ChainedInputGuardrail> guardrails, MeterRegistry registry) {
+        this.registry = registry;
+        Map<Cost, List<Link>> byCost = new EnumMap<>(Cost.class);
+        for (Instance.Handle<ChainedInputGuardrail> handle : guardrails.handles()) {
+            ChainedInputGuardrail guardrail = handle.get();
+            byCost.computeIfAbsent(guardrail.cost(), cost -> new ArrayList<>())
+                    .add(new Link(handle.getBean().getBeanClass().getSimpleName(), guardrail));
+        }
+        tiers.addAll(byCost.values());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public InputGuardrailResult validate(UserMessage userMessage) {
+        for (int i = 0; i < tiers.size(); i++) {
+            List<Link> tier = tiers.get(i);
+            Verdict verdict = tier.size() == 1 || tier.get(0).cost() == Cost.REGEX
+                    ? checkInSequence(tier, userMessage)
+                    : checkInParallel(tier, userMessage);
+            if (verdict.outcome() != Outcome.UNDECIDED) {
+                skip(i + 1);
+                return verdict.outcome() == Outcome.FAIL ? failure(verdict.reason()) : success();
+            }
+        }
+        return success();
+    }
+
+    private Verdict checkInSequence(List<Link> tier, UserMessage userMessage) {
+        Verdict result = Verdict.UNDECIDED;
+        for (Link link : tier) {
+            Verdict verdict = link.check(userMessage);
+            if (verdict.outcome() == Outcome.FAIL) {
+                return verdict;
+            }
+            if (verdict.outcome() == Outcome.PASS) {
+                result = verdict;
+            }
+        }
+        return result;
+    }
+
+    private Verdict checkInParallel(List<Link> tier, UserMessage userMessage) {
+        InFlightTurn turn = InFlightTurn.current();
+        CompletionService<Verdict> completion = new ExecutorCompletionService<>(executor);
+        List<Future<Verdict>> checks = new ArrayList<>(tier.size());
+        for (Link link : tier) {
+            Callable<Verdict> check = () -> link.check(userMessage);
+            checks.add(completion.submit(turn == null ? check : turn.fork(check)));
+        }
+        try {
+            Verdict result = Verdict.UNDECIDED;
+            for (int i = 0; i < checks.size(); i++) {
+                Verdict verdict = completion.take().get();
+                if (verdict.outcome() == Outcome.FAIL) {
+                    return verdict;
+                }
+                if (verdict.outcome() == Outcome.PASS) {
+                    result = verdict;
+                }
+            }
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (turn != null && turn.isCancelled()) {
+                throw new TurnCancelledException();
+            }
+            throw new IllegalStateException("Interrupted while running the input guardrails", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            checks.forEach(check -> check.cancel(true));
+        }
+    }
+
+    private void skip(int fromTier) {
+        for (List<Link> tier : tiers.subList(fromTier, tiers.size())) {
+            for (Link link : tier) {
+                registry.counter("chat.guardrail.skipped", "guardrail", link.name()).increment();
+            }
+        }
+    }
+
+    private class Link {
+
+        private final String name;
+        private final ChainedInputGuardrail guardrail;
+
+        Link(String name, ChainedInputGuardrail guardrail) {
+            this.name = name;
+            this.guardrail = guardrail;
+        }
+
+        String name() {
+            return name;
+        }
+
+        Cost cost() {
+            return guardrail.cost();
+        }
+
+        Verdict check(UserMessage userMessage) {
+            long start = System.nanoTime();
+            String verdict = "error";
+            try {
+                Verdict result = guardrail.check(userMessage);
+                verdict = result.outcome().name().toLowerCase(Locale.ROOT);
+                return result;
+            } finally {
+                registry.timer("chat.guardrail", "guardrail", name, "verdict", verdict)
+                        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package dev.langchain4j.quarkus.workshop;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable interval tree over bookings, finding the ones overlapping a date range in O(log n + matches).
+ * <p>
+ * The bookings are sorted by start date, and the sorted array is read as a balanced binary search tree: the root of a
+ * range of the array is its middle. Each node also keeps the latest end date of its subtree, which prunes the subtrees
+ * ending before the searched range.
+ */
+public final class IntervalTree {
+
+    private final BookingSummary[] bookings;
+    // in epoch days, both inclusive
+    private final long[] starts;
+    private final long[] ends;
+    // the latest end of the subtree rooted at each index
+    private final long[] maxEnds;
+
+    public IntervalTree(List<BookingSummary> bookings) {
+        this.bookings = bookings.stream()
+                .sorted(Comparator.comparing(BookingSummary::dateFrom))
+                .toArray(BookingSummary[]::new);
+        this.starts = new long[this.bookings.length];
+        this.ends = new long[this.bookings.length];
+        this.maxEnds = new long[this.bookings.length];
+        for (int i = 0; i < this.bookings.length; i++) {
+            starts[i] = this.bookings[i].dateFrom().toEpochDay();
+            ends[i] = this.bookings[i].dateTo().toEpochDay();
+        }
+        computeMaxEnds(0, this.bookings.length);
+    }
+
+    public int size() {
+        return bookings.length;
+    }
+
+    /**
+     * @return the bookings overlapping the range, both ends inclusive, by start date
+     */
+    public List<BookingSummary> overlapping(LocalDate from, LocalDate to) {
+        List<BookingSummary> overlapping = new ArrayList<>();
+        collect(0, bookings.length, from.toEpochDay(), to.toEpochDay(), overlapping);
+        return overlapping;
+    }
+
+    private long computeMaxEnds(int low, int high) {
+        if (low >= high) {
+            return Long.MIN_VALUE;
+        }
+        int middle = (low + high) >>> 1;
+        maxEnds[middle] = Math.max(ends[middle],
+                Math.max(computeMaxEnds(low, middle), computeMaxEnds(middle + 1, high)));
+        return maxEnds[middle];
+    }
+
+    private void collect(int low, int high, long from, long to, List<BookingSummary> overlapping) {
+        if (low >= high) {
+            return;
+        }
+        int middle = (low + high) >>> 1;
+        if (maxEnds[middle] < from) {
+            // everything below ends before the range
+            return;
+        }
+        collect(low, middle, from, to, overlapping);
+        if (starts[middle] > to) {
+            // everything on the right starts after the range
+            return;
+        }
+        if (ends[middle] >= from) {
+            overlapping.add(bookings[middle]);
+        }
+        collect(middle + 1, high, from, to, overlapping);
+    }
+}
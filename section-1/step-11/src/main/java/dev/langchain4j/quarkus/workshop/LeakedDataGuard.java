@@ -0,0 +1,54 @@
+package dev.langchain4j.quarkus.workshop;
+
+import java.util.Set;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+import static dev.langchain4j.quarkus.workshop.PiiDictionary.Match;
+
+/**
+ * Stops an answer disclosing the booking numbers or the customer names that did not come up in the conversation, given
+ * by the user or returned by the tools for them: they belong to other customers, e.g. pulled from another conversation
+ * by the retrieval or made up by the model.
+ */
+@ApplicationScoped
+public class LeakedDataGuard implements StreamingOutputGuardrail {
+
+    private static final String REPLACEMENT = " Sorry, I cannot share information about other customers.";
+
+    private final SessionMemoryStore memories;
+    private final PiiDictionary pii;
+
+    public LeakedDataGuard(SessionMemoryStore memories, PiiDictionary pii) {
+        this.memories = memories;
+        this.pii = pii;
+    }
+
+    @Override
+    public int window() {
+        return 64;
+    }
+
+    @Override
+    public Inspector open(String sessionId) {
+        return new Inspector() {
+
+            // what came up in the conversation, read on the first token, once the tool results are in the memory
+            private Set<String> known;
+
+            @Override
+            public Result inspect(CharSequence window, boolean complete) {
+                if (known == null) {
+                    known = pii.known(memories.getMessages(sessionId));
+                }
+                for (Match match : pii.find(window)) {
+                    // a match running up to the end of the window may be the start of a longer name or number
+                    if ((complete || match.end() < window.length()) && !known.contains(match.value())) {
+                        return Result.abort(REPLACEMENT);
+                    }
+                }
+                return Result.CONTINUE;
+            }
+        };
+    }
+}
@@ -0,0 +1,27 @@
+package dev.langchain4j.quarkus.workshop;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import jakarta.enterprise.util.Nonbinding;
+import jakarta.interceptor.InterceptorBinding;
+
+/**
+ * Marks an AI service whose calls go through the {@link ModelCallLimiter} and the {@link TokenBudget}.
+ *
+ * @see ModelCallLimitInterceptor
+ */
+@InterceptorBinding
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface LimitModelCalls {
+
+    /**
+     * Whether the calls check the user messages for a guardrail: they are served first by the {@link TokenBudget}, and
+     * run within the slot of the call they check instead of waiting for one.
+     */
+    @Nonbinding
+    boolean guardrail() default false;
+}
@@ -0,0 +1,29 @@
+package dev.langchain4j.quarkus.workshop;
+
+import dev.langchain4j.data.message.UserMessage;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Rejects the messages too long to be a customer question, before they cost a model call.
+ */
+@ApplicationScoped
+public class MessageLengthGuard implements ChainedInputGuardrail {
+
+    @ConfigProperty(name = "customer-support-agent.guardrails.max-message-length", defaultValue = "2000")
+    int maxLength;
+
+    @Override
+    public Cost cost() {
+        return Cost.REGEX;
+    }
+
+    @Override
+    public Verdict check(UserMessage userMessage) {
+        if (userMessage.singleText().length() > maxLength) {
+            return Verdict.fail("Message too long, please keep it under " + maxLength + " characters");
+        }
+        return Verdict.UNDECIDED;
+    }
+}
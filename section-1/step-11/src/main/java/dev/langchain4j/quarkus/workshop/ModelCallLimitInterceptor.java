@@ -0,0 +1,98 @@
+package dev.langchain4j.quarkus.workshop;
+
+import jakarta.annotation.Priority;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.Interceptor;
+import jakarta.interceptor.InvocationContext;
+
+import io.smallrye.mutiny.Multi;
+
+/**
+ * Admits the AI service calls through the {@link ModelCallLimiter} and the {@link TokenBudget}.
+ * <p>
+ * The interceptor runs inside the fault tolerance one, so a shed call gets the fallback answer of its service, and
+ * each retry waits for a slot of its own. A call holds its slot until it returns, a streamed answer until the stream
+ * ends. The prompt injection checks, {@code @LimitModelCalls(guardrail = true)}, never wait for a slot: they run for the
+ * input guardrail of an agent call that holds one, and waiting for a second slot could deadlock once all of them are
+ * held by calls waiting for their guardrail. That guardrail runs inside the agent call, or when its stream is
+ * subscribed to, after the interceptor returned. Any other call made while the same thread holds a slot reuses it.
+ * <p>
+ * The limiter adapts to the latency of the model calls themselves, as measured by the {@link ModelLatencyListener},
+ * not to the one of the AI service calls, which includes the guardrails, the retrieval and the tool calls. The method
+ * of the AI service is available to the listener with {@link #caller()}.
+ * <p>
+ * The estimated prompt tokens are reserved before waiting for a slot, for the nested calls too, and given back once
+ * the call is done, when the {@link TokenUsageListener} has taken the actual usage.
+ */
+@LimitModelCalls
+@Interceptor
+@Priority(Interceptor.Priority.PLATFORM_AFTER + 15)
+public class ModelCallLimitInterceptor {
+
+    private static final ThreadLocal<Boolean> HOLDING = new ThreadLocal<>();
+    private static final ThreadLocal<String> CALLER = new ThreadLocal<>();
+
+    private final ModelCallLimiter limiter;
+    private final TokenBudget budget;
+    private final PromptTokenEstimator estimator;
+
+    public ModelCallLimitInterceptor(ModelCallLimiter limiter, TokenBudget budget, PromptTokenEstimator estimator) {
+        this.limiter = limiter;
+        this.budget = budget;
+        this.estimator = estimator;
+    }
+
+    /**
+     * @return the AI service method calling the model on the current thread, as {@code Class.method}, or {@code null}
+     */
+    static String caller() {
+        return CALLER.get();
+    }
+
+    @AroundInvoke
+    Object limit(InvocationContext ctx) throws Exception {
+        LimitModelCalls binding = ctx.getMethod().getAnnotation(LimitModelCalls.class);
+        boolean guardrail = binding != null && binding.guardrail();
+        int tokens = estimator.estimate(ctx);
+        budget.reserve(tokens, guardrail);
+        String caller = CALLER.get();
+        CALLER.set(ctx.getMethod().getDeclaringClass().getSimpleName() + "." + ctx.getMethod().getName());
+        boolean streaming = false;
+        try {
+            Object result = guardrail || HOLDING.get() != null ? ctx.proceed() : inSlot(ctx);
+            if (result instanceof Multi<?> stream) {
+                streaming = true;
+                return stream.onTermination().invoke(() -> budget.refund(tokens));
+            }
+            return result;
+        } finally {
+            if (caller == null) {
+                CALLER.remove();
+            } else {
+                CALLER.set(caller);
+            }
+            if (!streaming) {
+                budget.refund(tokens);
+            }
+        }
+    }
+
+    private Object inSlot(InvocationContext ctx) throws Exception {
+        boolean trial = limiter.acquire();
+        HOLDING.set(Boolean.TRUE);
+        boolean streaming = false;
+        try {
+            Object result = ctx.proceed();
+            if (result instanceof Multi<?> stream) {
+                streaming = true;
+                return stream.onTermination().invoke(() -> limiter.release(trial));
+            }
+            return result;
+        } finally {
+            HOLDING.remove();
+            if (!streaming) {
+                limiter.release(trial);
+            }
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package dev.langchain4j.quarkus.workshop;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.logging.Log;
+
+import static dev.langchain4j.quarkus.workshop.Exceptions.ModelOverloadedException;
+
+/**
+ * Caps the number of AI service calls in flight, adapting the cap to the latency of the model provider.
+ * <p>
+ * The limit is applied to the AI service calls, and adapted to the model calls they make, as sampled by the
+ * {@link ModelLatencyListener}: an AI service call also runs its guardrails, its retrieval and its tools, and may call
+ * the model several times. The limit grows by one for every {@code limit} model calls answering close to the best
+ * latency seen for their AI service method (additive increase), and shrinks by 10% whenever a model call is more than
+ * {@code latency-tolerance} times slower than that, or fails (multiplicative decrease): when the provider slows down,
+ * fewer calls are sent, instead of piling up. The calls over the limit wait in a bounded queue, for at most
+ * {@code model-call-wait}; the others are shed right away with a {@link ModelOverloadedException}, which the agent
+ * turns into its fallback answer.
+ * <p>
+ * A circuit breaker watches the same model calls: when at least half of the last ones failed or were slower than
+ * {@code slow-call}, every AI service call is shed for {@code open-delay}, after which one trial call at a time is
+ * let through, until a few model calls decide whether to close it again. Unlike the fault tolerance one, it opens on
+ * a provider that answers slowly, not only on one that fails.
+ * <p>
+ * The limit and the calls in flight are exposed as the {@code chat.model.limit} and {@code chat.model.in-flight}
+ * gauges, the shed calls are counted in {@code chat.model.calls.shed}, tagged with the reason.
+ */
+@ApplicationScoped
+public class ModelCallLimiter {
+
+    private static final int BREAKER_WINDOW = 20;
+    private static final int TRIAL_CALLS = 3;
+
+    @ConfigProperty(name = "customer-support-agent.max-concurrent-model-calls", defaultValue = "64")
+    int maxLimit;
+
+    @ConfigProperty(name = "customer-support-agent.limiter.initial-limit", defaultValue = "16")
+    int initialLimit;
+
+    @ConfigProperty(name = "customer-support-agent.limiter.max-queue", defaultValue = "128")
+    int maxQueue;
+
+    @ConfigProperty(name = "customer-support-agent.limiter.latency-tolerance", defaultValue = "2.0")
+    double latencyTolerance;
+
+    @ConfigProperty(name = "customer-support-agent.model-call-wait", defaultValue = "PT2S")
+    Duration maxWait;
+
+    @ConfigProperty(name = "customer-support-agent.circuit-breaker.slow-call", defaultValue = "PT30S")
+    Duration slowCall;
+
+    @ConfigProperty(name = "customer-support-agent.circuit-breaker.open-delay", defaultValue = "PT10S")
+    Duration openDelay;
+
+    private final MeterRegistry registry;
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition available = lock.newCondition();
+    // the lowest latency seen per method, slowly forgotten so that it follows the provider
+    private final Map<String, Double> bestLatencies = new ConcurrentHashMap<>();
+    // the outcomes of the last calls, true if slow or failed
+    private final boolean[] bad = new boolean[BREAKER_WINDOW];
+    private double limit;
+    private int inFlight;
+    private int queued;
+    private long calls;
+    private int badCalls;
+    private State state = State.CLOSED;
+    private long openUntil;
+    private boolean trialInFlight;
+    private int goodTrials;
+
+    public ModelCallLimiter(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @PostConstruct
+    void init() {
+        limit = Math.min(initialLimit, maxLimit);
+        registry.gauge("chat.model.limit", this, limiter -> limiter.limit);
+        registry.gauge("chat.model.in-flight", this, limiter -> limiter.inFlight);
+    }
+
+    /**
+     * Waits for a slot.
+     *
+     * @return whether the call is the trial call of the half-open circuit, to hand back to {@link #release(boolean)}
+     * @throws ModelOverloadedException if the circuit is open, the queue is full, or no slot became available in time
+     */
+    boolean acquire() throws InterruptedException {
+        lock.lock();
+        try {
+            if (!allowedByBreaker()) {
+                throw shed("circuit-open");
+            }
+            boolean trial = state == State.HALF_OPEN;
+            try {
+                awaitSlot();
+            } catch (InterruptedException | RuntimeException e) {
+                if (trial) {
+                    // a trial call that never ran
+                    trialInFlight = false;
+                }
+                throw e;
+            }
+            inFlight++;
+            return trial;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void awaitSlot() throws InterruptedException {
+        if (inFlight < (int) limit) {
+            return;
+        }
+        if (queued >= maxQueue) {
+            throw shed("queue-full");
+        }
+        queued++;
+        try {
+            long remaining = maxWait.toNanos();
+            while (inFlight >= (int) limit) {
+                if (remaining <= 0) {
+                    throw shed("timeout");
+                }
+                remaining = available.awaitNanos(remaining);
+            }
+        } finally {
+            queued--;
+        }
+    }
+
+    void release(boolean trial) {
+        lock.lock();
+        try {
+            inFlight--;
+            if (trial) {
+                trialInFlight = false;
+            }
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adapts the limit and the circuit to a model call.
+     *
+     * @param key the AI service method making the call, the calls of a method being of a similar size
+     */
+    void sample(String key, long latency, boolean failed) {
+        lock.lock();
+        try {
+            adapt(key, latency, failed);
+            record(failed || latency > slowCall.toNanos());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void adapt(String key, long latency, boolean failed) {
+        double best = bestLatencies.merge(key, (double) latency, (current, sample) -> Math.min(current * 1.001, sample));
+        if (failed || latency > best * latencyTolerance) {
+            limit = Math.max(1, limit * 0.9);
+        } else if (inFlight >= limit / 2) {
+            // the limit is actually used: one more slot per window of calls
+            limit = Math.min(maxLimit, limit + 1 / limit);
+        }
+    }
+
+    private void record(boolean badCall) {
+        switch (state) {
+            case CLOSED -> {
+                int slot = (int) (calls++ % BREAKER_WINDOW);
+                if (calls > BREAKER_WINDOW && bad[slot]) {
+                    badCalls--;
+                }
+                bad[slot] = badCall;
+                if (badCall) {
+                    badCalls++;
+                }
+                if (calls >= BREAKER_WINDOW && badCalls * 2 >= BREAKER_WINDOW) {
+                    open();
+                }
+            }
+            case HALF_OPEN -> {
+                if (badCall) {
+                    open();
+                } else if (++goodTrials >= TRIAL_CALLS) {
+                    Log.info("Model circuit breaker closed");
+                    state = State.CLOSED;
+                    calls = 0;
+                    badCalls = 0;
+                }
+            }
+            case OPEN -> {
+                // a call sent before the circuit opened
+            }
+        }
+    }
+
+    private void open() {
+        Log.warnf("Model circuit breaker open for %s, the provider is failing or too slow", openDelay);
+        state = State.OPEN;
+        openUntil = System.nanoTime() + openDelay.toNanos();
+    }
+
+    private boolean allowedByBreaker() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() < openUntil) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+            goodTrials = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            // one trial call at a time
+            if (trialInFlight) {
+                return false;
+            }
+            trialInFlight = true;
+        }
+        return true;
+    }
+
+    private enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private ModelOverloadedException shed(String reason) {
+        registry.counter("chat.model.calls.shed", "reason", reason).increment();
+        return new ModelOverloadedException();
+    }
+}
@@ -0,0 +1,58 @@
+package dev.langchain4j.quarkus.workshop;
+
+import java.util.Objects;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+import dev.langchain4j.model.chat.listener.ChatModelErrorContext;
+import dev.langchain4j.model.chat.listener.ChatModelListener;
+import dev.langchain4j.model.chat.listener.ChatModelRequestContext;
+import dev.langchain4j.model.chat.listener.ChatModelResponseContext;
+
+/**
+ * Hands the latency and the failures of every model call over to the {@link ModelCallLimiter}.
+ * <p>
+ * The calls are keyed by the AI service method making them, as found by the {@link ModelCallLimitInterceptor} on the
+ * calling thread. The calls made on another thread, such as the hedged ones or the streamed answers, are keyed by the
+ * model instead. The failures of a cancelled turn say nothing about the provider, and are not sampled.
+ */
+@ApplicationScoped
+public class ModelLatencyListener implements ChatModelListener {
+
+    private static final String START = "model-latency-listener.start";
+    private static final String KEY = "model-latency-listener.key";
+
+    private final ModelCallLimiter limiter;
+
+    public ModelLatencyListener(ModelCallLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    @Override
+    public void onRequest(ChatModelRequestContext requestContext) {
+        String caller = ModelCallLimitInterceptor.caller();
+        requestContext.attributes().put(KEY, caller != null ? caller
+                : Objects.requireNonNullElse(requestContext.chatRequest().parameters().modelName(), "unknown"));
+        requestContext.attributes().put(START, System.nanoTime());
+    }
+
+    @Override
+    public void onResponse(ChatModelResponseContext responseContext) {
+        if (responseContext.attributes().get(START) instanceof Long start
+                && responseContext.attributes().get(KEY) instanceof String key) {
+            limiter.sample(key, System.nanoTime() - start, false);
+        }
+    }
+
+    @Override
+    public void onError(ChatModelErrorContext errorContext) {
+        InFlightTurn turn = InFlightTurn.current();
+        if (turn != null && turn.isCancelled()) {
+            return;
+        }
+        if (errorContext.attributes().get(START) instanceof Long start
+                && errorContext.attributes().get(KEY) instanceof String key) {
+            limiter.sample(key, System.nanoTime() - start, true);
+        }
+    }
+}
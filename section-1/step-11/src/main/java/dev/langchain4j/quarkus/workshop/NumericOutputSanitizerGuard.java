@@ -3,6 +3,7 @@ package dev.langchain4j.quarkus.workshop;
 import dev.langchain4j.data.message.AiMessage;
 import dev.langchain4j.guardrail.OutputGuardrail;
 import dev.langchain4j.guardrail.OutputGuardrailResult;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import org.jboss.logging.Logger;
@@ -13,51 +14,113 @@ public class NumericOutputSanitizerGuard implements OutputGuardrail {
     @Inject
     Logger logger;
 
+    @Inject
+    MeterRegistry registry;
+
     @Override
     public OutputGuardrailResult validate(AiMessage responseFromLLM) {
         String llmResponse = responseFromLLM.text();
 
-        try {
-            double number = Double.parseDouble(llmResponse);
-            return successWith(llmResponse, number);
-        } catch (NumberFormatException e) {
-            // ignore
+        double number = extractNumber(llmResponse);
+        if (Double.isNaN(number)) {
+            // another round trip to the model, they should stay at zero with the structured output
+            registry.counter("chat.guardrail.reprompts", "guardrail", "NumericOutputSanitizerGuard").increment();
+            return reprompt("Unable to extract a number from LLM response: " + llmResponse,
+                    "Only return a single floating point number between 0.0 and 1.0.");
         }
+        if (number < 0.0 || number > 1.0) {
+            logger.debugf("Out of range numeric result: %s", llmResponse);
+            number = Math.min(1.0, Math.max(0.0, number));
+        }
+        return successWith(llmResponse, number);
+    }
 
-        logger.debugf("LLM output for expected numeric result: %s", llmResponse);
-
-        String extractedNumber = extractNumber(llmResponse);
-        if (extractedNumber != null) {
-            logger.infof("Extracted number: %s", extractedNumber);
-            try {
-                double number = Double.parseDouble(extractedNumber);
-                return successWith(extractedNumber, number);
-            } catch (NumberFormatException e) {
-                // ignore
-            }
+    /**
+     * Parses the last number of the text, in place: the number alone, the end of an explanation, or the value of a
+     * JSON object such as {@code {"score": 0.8}} all work.
+     *
+     * @return the number, or NaN if there is none
+     */
+    static double extractNumber(String text) {
+        if (text == null) {
+            return Double.NaN;
+        }
+        int end = text.length() - 1;
+        while (end >= 0 && !Character.isDigit(text.charAt(end))) {
+            end--;
+        }
+        if (end < 0) {
+            return Double.NaN;
         }
+        int begin = end;
+        while (begin > 0 && isNumberChar(text.charAt(begin - 1))) {
+            begin--;
+        }
+        return parse(text, begin, end + 1);
+    }
 
-        return failure("Unable to extract a number from LLM response: " + llmResponse);
+    private static boolean isNumberChar(char c) {
+        return Character.isDigit(c) || c == '.' || c == '-' || c == '+' || c == 'e' || c == 'E';
     }
 
-    private String extractNumber(String text) {
-        int lastDigitPosition = text.length()-1;
-        while (lastDigitPosition >= 0) {
-            if (Character.isDigit(text.charAt(lastDigitPosition))) {
+    // sign, digits, optional fraction, optional exponent; leading junk such as "e-" in "score-0.5" is skipped
+    private static double parse(String text, int begin, int end) {
+        int i = begin;
+        while (i < end && !Character.isDigit(text.charAt(i)) && !isSignedNumberStart(text, i, end)) {
+            i++;
+        }
+        boolean negative = false;
+        if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            negative = text.charAt(i) == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int exponent = 0;
+        int digits = 0;
+        boolean fraction = false;
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (Character.isDigit(c)) {
+                // beyond 18 digits the precision is lost anyway
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    digits++;
+                    if (fraction) {
+                        exponent--;
+                    }
+                } else if (!fraction) {
+                    exponent++;
+                }
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+            } else {
                 break;
             }
-            lastDigitPosition--;
         }
-        if (lastDigitPosition < 0) {
-            return null;
+        if (digits == 0) {
+            return Double.NaN;
         }
-        int numberBegin = lastDigitPosition;
-        while (numberBegin >= 0) {
-            if (!Character.isDigit(text.charAt(numberBegin)) && text.charAt(numberBegin) != '.') {
-                break;
+        if (i < end - 1 && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+            int j = i + 1;
+            boolean negativeExponent = false;
+            if (text.charAt(j) == '-' || text.charAt(j) == '+') {
+                negativeExponent = text.charAt(j) == '-';
+                j++;
+            }
+            int value = 0;
+            for (; j < end && Character.isDigit(text.charAt(j)); j++) {
+                value = Math.min(value * 10 + (text.charAt(j) - '0'), 400);
             }
-            numberBegin--;
+            exponent += negativeExponent ? -value : value;
         }
-        return text.substring(numberBegin+1, lastDigitPosition+1);
+        // dividing by an exact power of ten rounds correctly, 0.95 stays 0.95
+        double number = exponent >= 0 ? mantissa * Math.pow(10, exponent) : mantissa / Math.pow(10, -exponent);
+        return negative ? -number : number;
+    }
+
+    private static boolean isSignedNumberStart(String text, int i, int end) {
+        char c = text.charAt(i);
+        return (c == '-' || c == '+' || c == '.') && i + 1 < end
+                && (Character.isDigit(text.charAt(i + 1)) || text.charAt(i + 1) == '.');
     }
 }
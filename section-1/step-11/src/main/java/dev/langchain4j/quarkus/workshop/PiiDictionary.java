@@ -0,0 +1,221 @@
+package dev.langchain4j.quarkus.workshop;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.logging.Log;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+
+/**
+ * The personal data the agent must not disclose: the customer names, and the booking numbers.
+ * <p>
+ * The names are matched by an {@link AhoCorasick} automaton built from the {@link Customer} table, together with the
+ * words introducing a booking number, which is then read right after them. The automaton is rebuilt incrementally:
+ * the names added since the last build go to a small delta automaton, rebuilt on every change, and the removed names
+ * are filtered out of the matches. Once the delta grows past a fraction of the base automaton, both are merged by a
+ * full rebuild in the background, timed in {@code chat.pii.rebuild}.
+ */
+@ApplicationScoped
+public class PiiDictionary {
+
+    private static final List<String> BOOKING_KEYWORDS = List.of("booking", "booking id", "booking number",
+            "booking no", "booking nr", "booking reference", "booking ref", "reservation", "reservation number");
+
+    public enum Kind {
+        CUSTOMER_NAME,
+        BOOKING_NUMBER
+    }
+
+    /**
+     * An occurrence of personal data.
+     *
+     * @param value the normalized name, or the booking number
+     */
+    public record Match(Kind kind, int start, int end, String value) {
+    }
+
+    private record Automata(AhoCorasick base, AhoCorasick delta, Set<String> deltaNames) {
+    }
+
+    // the live names, with the number of customers having each of them
+    private final Map<String, Integer> names = new ConcurrentHashMap<>();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final Set<String> keywords = Set.copyOf(BOOKING_KEYWORDS);
+    private final Timer rebuildTimer;
+    private volatile Automata automata = new Automata(new AhoCorasick(BOOKING_KEYWORDS), new AhoCorasick(List.of()),
+            Set.of());
+
+    public PiiDictionary(MeterRegistry registry) {
+        this.rebuildTimer = registry.timer("chat.pii.rebuild");
+    }
+
+    void load(@Observes StartupEvent event) {
+        QuarkusTransaction.joiningExisting().run(() -> Customer.<Customer>streamAll()
+                .forEach(customer -> names.merge(fullName(customer), 1, Integer::sum)));
+        rebuild();
+    }
+
+    void added(String name) {
+        if (names.merge(name, 1, Integer::sum) == 1) {
+            synchronized (this) {
+                Automata current = automata;
+                Set<String> deltaNames = new HashSet<>(current.deltaNames());
+                deltaNames.add(name);
+                automata = new Automata(current.base(), new AhoCorasick(deltaNames), deltaNames);
+            }
+            rebuildIfDeltaTooLarge();
+        }
+    }
+
+    void removed(String name) {
+        names.computeIfPresent(name, (n, count) -> count == 1 ? null : count - 1);
+    }
+
+    /**
+     * @return the occurrences of personal data in the text, in the order they end, possibly overlapping
+     */
+    public List<Match> find(CharSequence text) {
+        Automata current = automata;
+        List<Match> matches = new ArrayList<>();
+        AhoCorasick.MatchHandler handler = (pattern, start, end) -> {
+            if (keywords.contains(pattern)) {
+                Match number = bookingNumber(text, end);
+                if (number != null) {
+                    matches.add(number);
+                }
+            } else if (names.containsKey(pattern)) {
+                matches.add(new Match(Kind.CUSTOMER_NAME, start, end, pattern));
+            }
+        };
+        current.base().scan(text, handler);
+        current.delta().scan(text, handler);
+        return matches;
+    }
+
+    /**
+     * @return the names and booking numbers that came up in the conversation, which the agent can repeat: given by the
+     * user, returned by the tools for them, or already in an answer
+     */
+    public Set<String> known(Iterable<ChatMessage> messages) {
+        Set<String> known = new HashSet<>();
+        for (ChatMessage message : messages) {
+            if (message instanceof UserMessage userMessage && userMessage.hasSingleText()) {
+                addMatches(known, RagRetriever.withoutContext(userMessage.singleText()));
+            } else if (message instanceof AiMessage aiMessage && aiMessage.text() != null) {
+                addMatches(known, aiMessage.text());
+            } else if (message instanceof ToolExecutionResultMessage result && result.text() != null) {
+                addMatches(known, result.text());
+                // the tool results list the booking numbers as bare ids, with no keyword before them
+                addNumbers(known, result.text());
+            }
+        }
+        return known;
+    }
+
+    private void addMatches(Set<String> known, String text) {
+        for (Match match : find(text)) {
+            known.add(match.value());
+        }
+    }
+
+    private static void addNumbers(Set<String> known, String text) {
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean digit = i < text.length() && Character.isDigit(text.charAt(i));
+            if (digit && start < 0) {
+                start = i;
+            } else if (!digit && start >= 0) {
+                known.add(text.substring(start, i));
+                start = -1;
+            }
+        }
+    }
+
+    /**
+     * Replaces the personal data not in {@code known} by {@code [redacted]}.
+     *
+     * @return the redacted text, or the text itself if there was nothing to redact
+     */
+    public String redact(String text, Set<String> known) {
+        List<Match> matches = find(text);
+        matches.removeIf(match -> known.contains(match.value()));
+        if (matches.isEmpty()) {
+            return text;
+        }
+        matches.sort(Comparator.comparingInt(Match::start).thenComparing(Match::end, Comparator.reverseOrder()));
+        StringBuilder redacted = new StringBuilder(text.length());
+        int position = 0;
+        for (Match match : matches) {
+            if (match.start() >= position) {
+                redacted.append(text, position, match.start()).append("[redacted]");
+                position = match.end();
+            }
+        }
+        return redacted.append(text, position, text.length()).toString();
+    }
+
+    private static Match bookingNumber(CharSequence text, int from) {
+        int start = from;
+        while (start < text.length() && " \t#:.".indexOf(text.charAt(start)) >= 0) {
+            start++;
+        }
+        int end = start;
+        while (end < text.length() && Character.isDigit(text.charAt(end))) {
+            end++;
+        }
+        if (end == start || (end < text.length() && Character.isLetter(text.charAt(end)))) {
+            return null;
+        }
+        return new Match(Kind.BOOKING_NUMBER, start, end, text.subSequence(start, end).toString());
+    }
+
+    private void rebuildIfDeltaTooLarge() {
+        Automata current = automata;
+        if (current.delta().size() > Math.max(256, current.base().size() / 100) && rebuilding.compareAndSet(false, true)) {
+            Thread.ofVirtual().name("pii-dictionary-rebuild").start(() -> {
+                try {
+                    rebuild();
+                } finally {
+                    rebuilding.set(false);
+                }
+            });
+        }
+    }
+
+    private void rebuild() {
+        rebuildTimer.record(() -> {
+            // the names added during the build are not in the snapshot: they stay in the delta
+            Set<String> snapshot = Set.copyOf(names.keySet());
+            List<String> patterns = new ArrayList<>(snapshot.size() + BOOKING_KEYWORDS.size());
+            patterns.addAll(snapshot);
+            patterns.addAll(BOOKING_KEYWORDS);
+            AhoCorasick base = new AhoCorasick(patterns);
+            synchronized (this) {
+                Set<String> deltaNames = new HashSet<>(automata.deltaNames());
+                deltaNames.removeAll(snapshot);
+                automata = new Automata(base, new AhoCorasick(deltaNames), deltaNames);
+            }
+            Log.infof("PII dictionary built with %d names", base.size() - BOOKING_KEYWORDS.size());
+        });
+    }
+
+    static String fullName(Customer customer) {
+        return AhoCorasick.normalize(customer.firstName + " " + customer.lastName);
+    }
+}
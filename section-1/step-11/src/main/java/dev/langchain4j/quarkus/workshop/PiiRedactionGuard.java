@@ -0,0 +1,43 @@
+package dev.langchain4j.quarkus.workshop;
+
+import java.util.List;
+import java.util.Set;
+
+import dev.langchain4j.guardrail.OutputGuardrail;
+import dev.langchain4j.guardrail.OutputGuardrailRequest;
+import dev.langchain4j.guardrail.OutputGuardrailResult;
+import dev.langchain4j.memory.ChatMemory;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * Redacts from the answer the customer names and booking numbers that did not come up in the conversation, given by
+ * the user or returned by the tools for them. Redacted answers are counted in {@code chat.pii.redacted}.
+ */
+@ApplicationScoped
+public class PiiRedactionGuard implements OutputGuardrail {
+
+    private final PiiDictionary pii;
+    private final MeterRegistry registry;
+
+    public PiiRedactionGuard(PiiDictionary pii, MeterRegistry registry) {
+        this.pii = pii;
+        this.registry = registry;
+    }
+
+    @Override
+    public OutputGuardrailResult validate(OutputGuardrailRequest request) {
+        String answer = request.responseFromLLM().aiMessage().text();
+        if (answer == null) {
+            return success();
+        }
+        ChatMemory memory = request.requestParams().chatMemory();
+        Set<String> known = pii.known(memory == null ? List.of() : memory.messages());
+        String redacted = pii.redact(answer, known);
+        if (redacted == answer) {
+            return success();
+        }
+        registry.counter("chat.pii.redacted").increment();
+        return successWith(redacted);
+    }
+}
@@ -0,0 +1,209 @@
+package dev.langchain4j.quarkus.workshop;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.ChatMessageDeserializer;
+import dev.langchain4j.data.message.ChatMessageSerializer;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.arc.properties.IfBuildProperty;
+import io.quarkus.logging.Log;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.panache.common.Page;
+import io.quarkus.panache.common.Sort;
+
+/**
+ * Chat memory store backed by the PostgreSQL datasource, so that any instance can serve any session and the
+ * WebSocket connections can be rebalanced freely.
+ * <p>
+ * Every message is an append-only {@link ChatMessageEntry} row. The messages added during a turn are buffered and
+ * written in a single batch when the turn ends. The memory of the sessions connected to this instance is cached
+ * locally, and read from the database on a cache miss, i.e. when a session (re)connects here. The cache entry is
+ * dropped on disconnection, as the next connection of the session may be served by another instance.
+ * <p>
+ * Only the agent has a memory, the prompt injection checks have none: they would otherwise read and delete the
+ * memory of a request-scoped id on every check. The system message is not stored, the agent adds it again to the
+ * memory on every call. The sessions whose last message is older than the grace period, and which are not connected
+ * here, are purged from time to time.
+ * <p>
+ * The time spent reading and writing is recorded in the {@code chat.memory.load} and {@code chat.memory.flush}
+ * timers.
+ */
+@ApplicationScoped
+@IfBuildProperty(name = "customer-support-agent.memory.store", stringValue = "postgresql")
+public class PostgresChatMemoryStore implements SessionMemoryStore {
+
+    private static final long PURGE_INTERVAL = Duration.ofMinutes(1).toMillis();
+
+    @ConfigProperty(name = "customer-support-agent.resume.grace-period", defaultValue = "PT10M")
+    Duration gracePeriod;
+
+    @ConfigProperty(name = "quarkus.langchain4j.chat-memory.memory-window.max-messages", defaultValue = "10")
+    int maxMessages;
+
+    private final Map<Object, CachedMemory> cache = new ConcurrentHashMap<>();
+    private final AtomicLong lastPurge = new AtomicLong();
+    private final Timer loadTimer;
+    private final Timer flushTimer;
+
+    public PostgresChatMemoryStore(MeterRegistry registry) {
+        this.loadTimer = registry.timer("chat.memory.load");
+        this.flushTimer = registry.timer("chat.memory.flush");
+    }
+
+    @Override
+    public String newSessionId() {
+        return UUID.randomUUID().toString();
+    }
+
+    @Override
+    public boolean resume(String sessionId) {
+        Instant notBefore = Instant.now().minus(gracePeriod);
+        return QuarkusTransaction.joiningExisting().call(() ->
+                ChatMessageEntry.count("sessionId = ?1 and createdAt >= ?2", sessionId, notBefore) > 0);
+    }
+
+    @Override
+    public List<ChatMessage> getMessages(Object memoryId) {
+        return cache.computeIfAbsent(memoryId, this::load).window();
+    }
+
+    @Override
+    public void updateMessages(Object memoryId, List<ChatMessage> messages) {
+        cache.computeIfAbsent(memoryId, this::load).update(messages);
+    }
+
+    @Override
+    public void deleteMessages(Object memoryId) {
+        cache.remove(memoryId);
+        QuarkusTransaction.joiningExisting().run(() -> ChatMessageEntry.delete("sessionId", memoryId.toString()));
+    }
+
+    @Override
+    public void endTurn(String sessionId) {
+        CachedMemory memory = cache.get(sessionId);
+        if (memory != null) {
+            flushTimer.record(() -> memory.flush(sessionId));
+        }
+    }
+
+    @Override
+    public void park(String sessionId) {
+        endTurn(sessionId);
+        cache.remove(sessionId);
+        purgeExpired();
+    }
+
+    private CachedMemory load(Object memoryId) {
+        return loadTimer.record(() -> QuarkusTransaction.joiningExisting().call(() -> {
+            List<ChatMessageEntry> rows = ChatMessageEntry.find("sessionId", Sort.descending("seq"), memoryId.toString())
+                    .page(Page.ofSize(maxMessages))
+                    .list();
+            List<ChatMessage> window = new ArrayList<>(rows.size());
+            for (int i = rows.size() - 1; i >= 0; i--) {
+                ChatMessage message = ChatMessageDeserializer.messageFromJson(rows.get(i).message);
+                // the window must not start with the result of a tool call whose request has been cut off
+                if (!window.isEmpty() || !(message instanceof ToolExecutionResultMessage)) {
+                    window.add(message);
+                }
+            }
+            int nextSeq = rows.isEmpty() ? 0 : rows.get(0).seq + 1;
+            return new CachedMemory(window, nextSeq);
+        }));
+    }
+
+    private void purgeExpired() {
+        long now = System.currentTimeMillis();
+        long last = lastPurge.get();
+        if (now - last < PURGE_INTERVAL || !lastPurge.compareAndSet(last, now)) {
+            return;
+        }
+        // a session is purged as a whole once inactive, a long conversation keeps its first messages
+        Instant expired = Instant.now().minus(gracePeriod);
+        String inactive = "sessionId in (select e.sessionId from ChatMessageEntry e group by e.sessionId "
+                + "having max(e.createdAt) < ?1)";
+        List<String> connected = cache.keySet().stream().map(Object::toString).toList();
+        long purged = QuarkusTransaction.requiringNew().call(() -> connected.isEmpty()
+                ? ChatMessageEntry.delete(inactive, expired)
+                : ChatMessageEntry.delete(inactive + " and sessionId not in ?2", expired, connected));
+        Log.debugf("Purged %d chat messages of inactive sessions", purged);
+    }
+
+    /**
+     * The memory window of a session, plus the messages added since the last flush.
+     */
+    private static class CachedMemory {
+
+        private List<ChatMessage> window;
+        private final List<ChatMessage> pending = new ArrayList<>();
+        private ChatMessage lastSeen;
+        private int nextSeq;
+
+        CachedMemory(List<ChatMessage> window, int nextSeq) {
+            this.window = window;
+            this.nextSeq = nextSeq;
+            this.lastSeen = window.isEmpty() ? null : window.get(window.size() - 1);
+        }
+
+        synchronized List<ChatMessage> window() {
+            return Collections.unmodifiableList(window);
+        }
+
+        /**
+         * The memory hands over its whole window on every change: the new messages are the ones after the last one
+         * already seen, which is never evicted since messages are only appended to the window.
+         */
+        synchronized void update(List<ChatMessage> messages) {
+            int from = 0;
+            for (int i = messages.size() - 1; i >= 0; i--) {
+                if (messages.get(i) == lastSeen) {
+                    from = i + 1;
+                    break;
+                }
+            }
+            for (ChatMessage message : messages.subList(from, messages.size())) {
+                if (!(message instanceof SystemMessage)) {
+                    pending.add(message);
+                }
+            }
+            if (!messages.isEmpty()) {
+                lastSeen = messages.get(messages.size() - 1);
+            }
+            window = new ArrayList<>(messages);
+        }
+
+        synchronized void flush(String sessionId) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            Instant now = Instant.now();
+            List<ChatMessageEntry> rows = new ArrayList<>(pending.size());
+            for (ChatMessage message : pending) {
+                ChatMessageEntry row = new ChatMessageEntry();
+                row.sessionId = sessionId;
+                row.seq = nextSeq + rows.size();
+                row.message = ChatMessageSerializer.messageToJson(message);
+                row.createdAt = now;
+                rows.add(row);
+            }
+            QuarkusTransaction.requiringNew().run(() -> ChatMessageEntry.persist(rows));
+            nextSeq += rows.size();
+            pending.clear();
+        }
+    }
+}
@@ -5,8 +5,12 @@ import dev.langchain4j.service.UserMessage;
 import dev.langchain4j.service.guardrail.OutputGuardrails;
 import io.quarkiverse.langchain4j.RegisterAiService;
 import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.faulttolerance.Retry;
 
-@RegisterAiService
+import static dev.langchain4j.quarkus.workshop.Exceptions.ModelOverloadedException;
+import static dev.langchain4j.quarkus.workshop.Exceptions.TurnCancelledException;
+
+@RegisterAiService(chatMemoryProviderSupplier = RegisterAiService.NoChatMemoryProviderSupplier.class)
 @ApplicationScoped
 public interface PromptInjectionDetectionService {
 
@@ -57,5 +61,8 @@ public interface PromptInjectionDetectionService {
             User query: {userQuery}
             """)
     @OutputGuardrails(NumericOutputSanitizerGuard.class)
+    @CancelOnDisconnect
+    @LimitModelCalls(guardrail = true)
+    @Retry(maxRetries = 2, delay = 100, abortOn = {TurnCancelledException.class, ModelOverloadedException.class})
     double isInjection(String userQuery);
 }
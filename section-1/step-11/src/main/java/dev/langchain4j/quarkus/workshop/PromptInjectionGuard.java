@@ -1,25 +1,37 @@
 package dev.langchain4j.quarkus.workshop;
 
 import dev.langchain4j.data.message.UserMessage;
-import dev.langchain4j.guardrail.InputGuardrail;
-import dev.langchain4j.guardrail.InputGuardrailResult;
 import jakarta.enterprise.context.ApplicationScoped;
 
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
 @ApplicationScoped
-public class PromptInjectionGuard implements InputGuardrail {
+public class PromptInjectionGuard implements ChainedInputGuardrail {
 
     private final PromptInjectionDetectionService service;
+    private final InjectionScoreService structuredService;
+
+    @ConfigProperty(name = "customer-support-agent.injection-detection.structured-output", defaultValue = "false")
+    boolean structuredOutput;
 
-    public PromptInjectionGuard(PromptInjectionDetectionService service) {
+    public PromptInjectionGuard(PromptInjectionDetectionService service, InjectionScoreService structuredService) {
         this.service = service;
+        this.structuredService = structuredService;
+    }
+
+    @Override
+    public Cost cost() {
+        return Cost.REMOTE_LLM;
     }
 
     @Override
-    public InputGuardrailResult validate(UserMessage userMessage) {
-        double result = service.isInjection(userMessage.singleText());
+    public Verdict check(UserMessage userMessage) {
+        double result = structuredOutput
+                ? structuredService.score(userMessage.singleText()).score()
+                : service.isInjection(userMessage.singleText());
         if (result > 0.7) {
-            return failure("Prompt injection detected");
+            return Verdict.fail("Prompt injection detected");
         }
-        return success();
+        return Verdict.UNDECIDED;
     }
 }
@@ -0,0 +1,50 @@
+package dev.langchain4j.quarkus.workshop;
+
+import java.lang.reflect.Method;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.interceptor.InvocationContext;
+
+import dev.langchain4j.model.embedding.onnx.HuggingFaceTokenCountEstimator;
+import dev.langchain4j.service.MemoryId;
+import dev.langchain4j.service.SystemMessage;
+import dev.langchain4j.service.UserMessage;
+
+/**
+ * Estimates the prompt tokens of an AI service call before it is made: the system and user message templates, the
+ * text parameters and, for the services with a memory, the conversation so far. The retrieved content and the tool
+ * specifications are not known yet, so this is a lower bound.
+ */
+@ApplicationScoped
+public class PromptTokenEstimator {
+
+    private final HuggingFaceTokenCountEstimator estimator = new HuggingFaceTokenCountEstimator();
+    private final SessionMemoryStore memories;
+
+    public PromptTokenEstimator(SessionMemoryStore memories) {
+        this.memories = memories;
+    }
+
+    public int estimate(InvocationContext ctx) {
+        Method method = ctx.getMethod();
+        StringBuilder prompt = new StringBuilder();
+        SystemMessage systemMessage = method.getAnnotation(SystemMessage.class);
+        if (systemMessage != null) {
+            prompt.append(String.join("\n", systemMessage.value()));
+        }
+        UserMessage userMessage = method.getAnnotation(UserMessage.class);
+        if (userMessage != null) {
+            prompt.append(String.join("\n", userMessage.value()));
+        }
+        int memoryTokens = 0;
+        Object[] parameters = ctx.getParameters();
+        for (int i = 0; i < parameters.length; i++) {
+            if (method.getParameters()[i].isAnnotationPresent(MemoryId.class)) {
+                memoryTokens = estimator.estimateTokenCountInMessages(memories.getMessages(parameters[i]));
+            } else if (parameters[i] instanceof String text) {
+                prompt.append(text);
+            }
+        }
+        return estimator.estimateTokenCountInText(prompt.toString()) + memoryTokens;
+    }
+}
@@ -1,6 +1,8 @@
 package dev.langchain4j.quarkus.workshop;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Set;
 
 import dev.langchain4j.data.message.ChatMessage;
 import jakarta.enterprise.context.ApplicationScoped;
@@ -17,9 +19,19 @@ import dev.langchain4j.store.embedding.EmbeddingStore;
 
 public class RagRetriever {
 
+    private static final String CONTEXT_HEADER = "\nPlease, only use the following information:\n";
+
+    /**
+     * @return the text of an augmented user message, without the retrieved content
+     */
+    static String withoutContext(String userMessage) {
+        int context = userMessage.indexOf(CONTEXT_HEADER);
+        return context < 0 ? userMessage : userMessage.substring(0, context);
+    }
+
     @Produces
     @ApplicationScoped
-    public RetrievalAugmentor create(EmbeddingStore store, EmbeddingModel model) {
+    public RetrievalAugmentor create(EmbeddingStore store, EmbeddingModel model, PiiDictionary pii) {
         var contentRetriever = EmbeddingStoreContentRetriever.builder()
                 .embeddingModel(model)
                 .embeddingStore(store)
@@ -32,8 +44,12 @@ public class RagRetriever {
                     @Override
                     public UserMessage inject(List<Content> list, ChatMessage chatMessage) {
                         StringBuffer prompt = new StringBuffer(((UserMessage)chatMessage).singleText());
-                        prompt.append("\nPlease, only use the following information:\n");
-                        list.forEach(content -> prompt.append("- ").append(content.textSegment().text()).append("\n"));
+                        prompt.append(CONTEXT_HEADER);
+                        // the documents may name other customers
+                        Set<String> known = pii.known(List.of(chatMessage));
+                        list.forEach(content -> prompt.append("- ").append(pii.redact(content.textSegment().text(), known)).append("\n"));
+                        // the dynamic values go last, after everything the provider may have cached
+                        prompt.append("Today is ").append(LocalDate.now()).append(".\n");
                         return new UserMessage(prompt.toString());
                     }
                 })
@@ -0,0 +1,123 @@
+package dev.langchain4j.quarkus.workshop;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+
+import org.hibernate.SessionFactory;
+
+import dev.langchain4j.agent.tool.Tool;
+import io.quarkus.arc.properties.IfBuildProperty;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.sqlclient.Pool;
+import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.RowSet;
+import io.vertx.mutiny.sqlclient.SqlClient;
+import io.vertx.mutiny.sqlclient.Tuple;
+
+import static dev.langchain4j.quarkus.workshop.BookingAvailability.BookingChanged;
+import static dev.langchain4j.quarkus.workshop.Exceptions.BookingCannotBeCancelledException;
+import static dev.langchain4j.quarkus.workshop.Exceptions.BookingNotFoundException;
+import static dev.langchain4j.quarkus.workshop.Exceptions.CustomerNotFoundException;
+
+/**
+ * The booking tools of the {@link BookingRepository}, on the reactive PostgreSQL client: the queries run on the event
+ * loop and the tools return a {@link Uni}, so that a tool call does not hold a thread during its round trips to the
+ * database. Enabled with {@code customer-support-agent.bookings.reactive=true} (build time), to use in the
+ * {@code @ToolBox} of the {@link CustomerSupportAgent} instead of the {@link BookingRepository}.
+ * <p>
+ * The queries bypass Hibernate ORM, and the replica datasource: a cancelled booking is evicted from the second-level
+ * cache here.
+ */
+@ApplicationScoped
+@IfBuildProperty(name = "customer-support-agent.bookings.reactive", stringValue = "true")
+public class ReactiveBookingRepository {
+
+    private static final String SUMMARY = "select b.id, b.dateFrom, b.dateTo, b.location "
+            + "from booking b join customer c on c.id = b.customer_id ";
+
+    private final Pool client;
+    private final ToolResults results;
+    private final SessionFactory sessionFactory;
+    private final Event<BookingChanged> changes;
+
+    public ReactiveBookingRepository(Pool client, ToolResults results, SessionFactory sessionFactory,
+            Event<BookingChanged> changes) {
+        this.client = client;
+        this.results = results;
+        this.sessionFactory = sessionFactory;
+        this.changes = changes;
+    }
+
+    @Tool("Cancel a booking")
+    public Uni<Void> cancelBooking(long bookingId, String customerFirstName, String customerLastName) {
+        return client.withTransaction(connection -> findBooking(connection, bookingId, customerFirstName, customerLastName)
+                        .onItem().transformToUni(booking -> {
+                            if (!BookingRepository.isCancellable(booking)) {
+                                throw new BookingCannotBeCancelledException(bookingId);
+                            }
+                            return connection.preparedQuery("delete from booking where id = $1")
+                                    .execute(Tuple.of(bookingId))
+                                    .replaceWith(booking);
+                        }))
+                .onItem().invoke(booking -> {
+                    sessionFactory.getCache().evict(Booking.class, bookingId);
+                    sessionFactory.getCache().evictDefaultQueryRegion();
+                    changes.fire(new BookingChanged(booking.location()));
+                })
+                .onFailure(BookingNotFoundException.class).recoverWithNull()
+                .replaceWithVoid();
+    }
+
+    @Tool("List booking for a customer")
+    public Uni<String> listBookingsForCustomer(String customerName, String customerSurname) {
+        // LOWER() on both sides matches the customer_name_idx functional index
+        return client.preparedQuery(SUMMARY + "where LOWER(c.lastName) = LOWER($2) and LOWER(c.firstName) = LOWER($1)")
+                .execute(Tuple.of(customerName, customerSurname))
+                .onItem().transformToUni(rows -> {
+                    List<BookingSummary> bookings = summaries(rows);
+                    if (!bookings.isEmpty()) {
+                        return Uni.createFrom().item(bookings);
+                    }
+                    return client.preparedQuery("select 1 from customer "
+                                    + "where LOWER(lastName) = LOWER($2) and LOWER(firstName) = LOWER($1) limit 1")
+                            .execute(Tuple.of(customerName, customerSurname))
+                            .map(customer -> {
+                                if (customer.rowCount() == 0) {
+                                    throw new CustomerNotFoundException(customerName, customerSurname);
+                                }
+                                return bookings;
+                            });
+                })
+                .map(bookings -> results.bookings("listBookingsForCustomer", bookings));
+    }
+
+    @Tool("Get booking details")
+    public Uni<String> getBookingDetails(long bookingId, String customerFirstName, String customerLastName) {
+        return findBooking(client, bookingId, customerFirstName, customerLastName)
+                .map(booking -> results.bookings("getBookingDetails", List.of(booking)));
+    }
+
+    private static Uni<BookingSummary> findBooking(SqlClient client, long bookingId, String customerFirstName,
+            String customerLastName) {
+        return client.preparedQuery(SUMMARY + "where b.id = $1 and c.firstName = $2 and c.lastName = $3")
+                .execute(Tuple.of(bookingId, customerFirstName, customerLastName))
+                .map(rows -> {
+                    List<BookingSummary> bookings = summaries(rows);
+                    if (bookings.isEmpty()) {
+                        throw new BookingNotFoundException(bookingId);
+                    }
+                    return bookings.get(0);
+                });
+    }
+
+    private static List<BookingSummary> summaries(RowSet<Row> rows) {
+        List<BookingSummary> bookings = new ArrayList<>(rows.rowCount());
+        for (Row row : rows) {
+            bookings.add(new BookingSummary(row.getLong(0), row.getLocalDate(1), row.getLocalDate(2), row.getString(3)));
+        }
+        return bookings;
+    }
+}
@@ -0,0 +1,19 @@
+package dev.langchain4j.quarkus.workshop;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import jakarta.interceptor.InterceptorBinding;
+
+/**
+ * Runs a method that only reads in a read-only transaction, which goes to the replica datasource when there is one.
+ *
+ * @see ReadOnlyTransactionInterceptor
+ */
+@InterceptorBinding
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReadOnlyTransaction {
+}
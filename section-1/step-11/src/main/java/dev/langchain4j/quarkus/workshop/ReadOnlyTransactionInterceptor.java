@@ -0,0 +1,77 @@
+package dev.langchain4j.quarkus.workshop;
+
+import jakarta.annotation.Priority;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.Interceptor;
+import jakarta.interceptor.InvocationContext;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Status;
+import jakarta.transaction.TransactionManager;
+
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+
+/**
+ * Runs a {@link ReadOnlyTransaction} method in a transaction of its own, whose Hibernate session is read-only: the
+ * loaded entities are not snapshotted for dirty checking, and the session is never flushed. The transaction is rolled
+ * back at the end, there is nothing to commit.
+ * <p>
+ * The session is opened as the transaction begins, while {@link #isReadOnly()} holds, so that the
+ * {@link ReplicaTenantResolver} sends it to the replica. A method called within a transaction already running, such
+ * as a write one, joins it instead, and reads from the primary what that transaction may have written. The queries run
+ * while {@link #inReadOnlyTransaction()} holds may thus read from a lagging replica.
+ */
+@ReadOnlyTransaction
+@Interceptor
+@Priority(Interceptor.Priority.PLATFORM_BEFORE + 200)
+public class ReadOnlyTransactionInterceptor {
+
+    private static final ThreadLocal<Boolean> READ_ONLY = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> IN_READ_ONLY_TRANSACTION = new ThreadLocal<>();
+
+    private final TransactionManager transactionManager;
+    private final EntityManager entityManager;
+
+    public ReadOnlyTransactionInterceptor(TransactionManager transactionManager, EntityManager entityManager) {
+        this.transactionManager = transactionManager;
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * @return whether the session being opened on the current thread is a read-only one
+     */
+    static boolean isReadOnly() {
+        return READ_ONLY.get() != null;
+    }
+
+    /**
+     * @return whether the current thread runs a read-only transaction of its own, on the replica if there is one
+     */
+    static boolean inReadOnlyTransaction() {
+        return IN_READ_ONLY_TRANSACTION.get() != null;
+    }
+
+    @AroundInvoke
+    Object readOnly(InvocationContext ctx) throws Exception {
+        if (transactionManager.getStatus() != Status.STATUS_NO_TRANSACTION) {
+            return ctx.proceed();
+        }
+        transactionManager.begin();
+        try {
+            READ_ONLY.set(Boolean.TRUE);
+            Session session;
+            try {
+                session = entityManager.unwrap(Session.class);
+            } finally {
+                READ_ONLY.remove();
+            }
+            session.setDefaultReadOnly(true);
+            session.setHibernateFlushMode(FlushMode.MANUAL);
+            IN_READ_ONLY_TRANSACTION.set(Boolean.TRUE);
+            return ctx.proceed();
+        } finally {
+            IN_READ_ONLY_TRANSACTION.remove();
+            transactionManager.rollback();
+        }
+    }
+}
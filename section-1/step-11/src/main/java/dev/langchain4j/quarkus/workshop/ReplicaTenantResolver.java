@@ -0,0 +1,33 @@
+package dev.langchain4j.quarkus.workshop;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+import io.quarkus.arc.properties.IfBuildProperty;
+import io.quarkus.datasource.common.runtime.DataSourceUtil;
+import io.quarkus.hibernate.orm.PersistenceUnitExtension;
+import io.quarkus.hibernate.orm.runtime.tenant.TenantResolver;
+
+/**
+ * Routes the Hibernate sessions to the datasources, with the database multitenancy of Hibernate ORM: the read-only
+ * sessions of the {@link ReadOnlyTransaction} methods go to the {@code replica} datasource, all the others to the
+ * default one, the primary. The tenant ids are the names of the datasources, the default datasource being named
+ * {@link DataSourceUtil#DEFAULT_DATASOURCE_NAME}: the schema is generated on it, and the write sessions use it.
+ */
+@ApplicationScoped
+@PersistenceUnitExtension
+@IfBuildProperty(name = "quarkus.hibernate-orm.multitenant", stringValue = "DATABASE")
+public class ReplicaTenantResolver implements TenantResolver {
+
+    static final String PRIMARY = DataSourceUtil.DEFAULT_DATASOURCE_NAME;
+    static final String REPLICA = "replica";
+
+    @Override
+    public String getDefaultTenantId() {
+        return PRIMARY;
+    }
+
+    @Override
+    public String resolveTenantId() {
+        return ReadOnlyTransactionInterceptor.isReadOnly() ? REPLICA : PRIMARY;
+    }
+}
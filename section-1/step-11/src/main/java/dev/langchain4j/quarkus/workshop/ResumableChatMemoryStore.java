@@ -0,0 +1,134 @@
+package dev.langchain4j.quarkus.workshop;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.ChatMessageDeserializer;
+import dev.langchain4j.data.message.ChatMessageSerializer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.arc.properties.UnlessBuildProperty;
+
+/**
+ * Chat memory store that survives WebSocket reconnections.
+ * <p>
+ * The memory of a connected session is kept as is. When the client disconnects, its memory is parked: serialized and
+ * compressed, to be re-attached if the client reconnects with its session token within the grace period. Parked
+ * memories are evicted when the grace period expires, or least recently parked first when there are too many of them.
+ * <p>
+ * The memory lives in this JVM only, so the clients must reconnect to the same instance: see
+ * {@link PostgresChatMemoryStore} to scale out.
+ */
+@ApplicationScoped
+@UnlessBuildProperty(name = "customer-support-agent.memory.store", stringValue = "postgresql", enableIfMissing = true)
+public class ResumableChatMemoryStore implements SessionMemoryStore {
+
+    @ConfigProperty(name = "customer-support-agent.resume.grace-period", defaultValue = "PT10M")
+    Duration gracePeriod;
+
+    @ConfigProperty(name = "customer-support-agent.resume.max-parked-sessions", defaultValue = "10000")
+    int maxParkedSessions;
+
+    private final MeterRegistry registry;
+    private final Map<Object, List<ChatMessage>> active = new ConcurrentHashMap<>();
+    private final LinkedHashMap<Object, Parked> parked = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Object, Parked> eldest) {
+            return size() > maxParkedSessions;
+        }
+    };
+
+    public ResumableChatMemoryStore(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public String newSessionId() {
+        return UUID.randomUUID().toString();
+    }
+
+    @Override
+    public boolean resume(String sessionId) {
+        Parked memory;
+        synchronized (parked) {
+            memory = parked.remove(sessionId);
+        }
+        if (memory == null || memory.expiresAt() < System.currentTimeMillis()) {
+            return false;
+        }
+        active.put(sessionId, inflate(memory.messages()));
+        registry.counter("chat.sessions.resumed").increment();
+        return true;
+    }
+
+    /**
+     * Compacts the memory of a disconnected session and keeps it for the grace period.
+     */
+    @Override
+    public void park(String sessionId) {
+        List<ChatMessage> messages = active.remove(sessionId);
+        if (messages == null || messages.isEmpty()) {
+            return;
+        }
+        Parked memory = new Parked(deflate(messages), System.currentTimeMillis() + gracePeriod.toMillis());
+        long now = System.currentTimeMillis();
+        synchronized (parked) {
+            parked.values().removeIf(p -> p.expiresAt() < now);
+            parked.put(sessionId, memory);
+        }
+    }
+
+    @Override
+    public List<ChatMessage> getMessages(Object memoryId) {
+        return active.getOrDefault(memoryId, List.of());
+    }
+
+    @Override
+    public void updateMessages(Object memoryId, List<ChatMessage> messages) {
+        active.put(memoryId, messages);
+    }
+
+    @Override
+    public void deleteMessages(Object memoryId) {
+        active.remove(memoryId);
+        synchronized (parked) {
+            parked.remove(memoryId);
+        }
+    }
+
+    private static byte[] deflate(List<ChatMessage> messages) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DeflaterOutputStream out = new DeflaterOutputStream(bytes)) {
+            out.write(ChatMessageSerializer.messagesToJson(messages).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static List<ChatMessage> inflate(byte[] messages) {
+        try (InflaterInputStream in = new InflaterInputStream(new ByteArrayInputStream(messages))) {
+            return ChatMessageDeserializer.messagesFromJson(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private record Parked(byte[] messages, long expiresAt) {
+    }
+}
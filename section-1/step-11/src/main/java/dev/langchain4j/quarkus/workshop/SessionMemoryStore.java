@@ -0,0 +1,33 @@
+package dev.langchain4j.quarkus.workshop;
+
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
+
+/**
+ * The chat memory of the WebSocket sessions, which outlives the connections so that a client can resume its
+ * conversation.
+ */
+public interface SessionMemoryStore extends ChatMemoryStore {
+
+    /**
+     * @return a new, unguessable, session id; it doubles as the token the client presents to resume the session
+     */
+    String newSessionId();
+
+    /**
+     * Re-attaches the memory of a disconnected session.
+     *
+     * @return {@code false} if there is no such session, or if its grace period has expired
+     */
+    boolean resume(String sessionId);
+
+    /**
+     * Called when the agent is done with a user message, once all the messages of the turn are in the memory.
+     */
+    default void endTurn(String sessionId) {
+    }
+
+    /**
+     * Called when the client disconnects; the memory must be kept for the grace period.
+     */
+    void park(String sessionId);
+}
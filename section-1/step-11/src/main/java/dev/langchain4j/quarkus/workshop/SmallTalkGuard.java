@@ -0,0 +1,28 @@
+package dev.langchain4j.quarkus.workshop;
+
+import java.util.regex.Pattern;
+
+import dev.langchain4j.data.message.UserMessage;
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * Lets greetings and thanks through without running the expensive checks: a message made only of those words cannot
+ * carry an injection.
+ */
+@ApplicationScoped
+public class SmallTalkGuard implements ChainedInputGuardrail {
+
+    private static final Pattern SMALL_TALK = Pattern.compile(
+            "(?i)\\s*(hi|hello|hey|good (morning|afternoon|evening)|thanks?|thank you|ok(ay)?|bye|goodbye)"
+                    + "(\\s*(there|a lot|very much|so much))?[\\s!.,]*");
+
+    @Override
+    public Cost cost() {
+        return Cost.REGEX;
+    }
+
+    @Override
+    public Verdict check(UserMessage userMessage) {
+        return SMALL_TALK.matcher(userMessage.singleText()).matches() ? Verdict.PASS : Verdict.UNDECIDED;
+    }
+}
@@ -0,0 +1,47 @@
+package dev.langchain4j.quarkus.workshop;
+
+/**
+ * An output guardrail checking a streamed answer while it is produced, applied by {@link StreamingOutputGuardrails}.
+ * <p>
+ * The guardrail sees a sliding window over the answer: the tail of the text already sent to the user, for context,
+ * followed by the text held back until it has been checked. The held back part is as long as the longest
+ * {@link #window()} of the guardrails, so a violation shorter than the window is always caught before any part of it
+ * reaches the user.
+ */
+public interface StreamingOutputGuardrail {
+
+    /**
+     * @return the number of characters to hold back, longer than any violation this guardrail looks for
+     */
+    int window();
+
+    /**
+     * Starts checking a new answer of the given session. Called on the thread subscribing to the answer, where
+     * blocking is allowed; the returned inspector is then called on the thread of the model client, where it is not.
+     */
+    Inspector open(String sessionId);
+
+    @FunctionalInterface
+    interface Inspector {
+
+        /**
+         * @param window the sliding window, ending with the last token received
+         * @param complete whether the answer is complete, i.e. the window end is the end of the answer; otherwise a
+         * match running up to the window end may be the prefix of a longer, legitimate, text
+         */
+        Result inspect(CharSequence window, boolean complete);
+    }
+
+    /**
+     * Whether to go on streaming, or to abort the answer and send the replacement message instead of the text
+     * held back.
+     */
+    record Result(boolean abort, String replacement) {
+
+        public static final Result CONTINUE = new Result(false, null);
+
+        public static Result abort(String replacement) {
+            return new Result(true, replacement);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package dev.langchain4j.quarkus.workshop;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Any;
+import jakarta.enterprise.inject.Instance;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.logging.Log;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.subscription.MultiEmitter;
+import io.smallrye.mutiny.subscription.MultiSubscriber;
+
+import static dev.langchain4j.quarkus.workshop.StreamingOutputGuardrail.Inspector;
+import static dev.langchain4j.quarkus.workshop.StreamingOutputGuardrail.Result;
+
+/**
+ * Applies all the {@link StreamingOutputGuardrail} beans to a streamed answer, without buffering it as a whole.
+ * <p>
+ * Every token is appended to the sliding window and inspected; the text exceeding the hold-back length is then
+ * released to the user. When a guardrail aborts, the model stream is cancelled, the held back text is dropped and
+ * the replacement message is sent instead. Aborted answers are counted in {@code chat.output.aborted}, tagged with
+ * the guardrail.
+ */
+@ApplicationScoped
+public class StreamingOutputGuardrails {
+
+    private final List<StreamingOutputGuardrail> guardrails = new ArrayList<>();
+    private final List<String> names = new ArrayList<>();
+    private final MeterRegistry registry;
+    private final int holdBack;
+
+    public StreamingOutputGuardrails(@Any Instance<StreamingOutputGuardrail> guardrails, MeterRegistry registry) {
+        for (Instance.Handle<StreamingOutputGuardrail> handle : guardrails.handles()) {
+            this.guardrails.add(handle.get());
+            this.names.add(handle.getBean().getBeanClass().getSimpleName());
+        }
+        this.registry = registry;
+        this.holdBack = this.guardrails.stream().mapToInt(StreamingOutputGuardrail::window).max().orElse(0);
+    }
+
+    public Multi<String> guard(String sessionId, Multi<String> answer) {
+        if (guardrails.isEmpty()) {
+            return answer;
+        }
+        return Multi.createFrom().emitter(emitter -> {
+            List<Inspector> inspectors = new ArrayList<>(guardrails.size());
+            guardrails.forEach(guardrail -> inspectors.add(guardrail.open(sessionId)));
+            GuardedStream stream = new GuardedStream(inspectors, emitter);
+            emitter.onTermination(stream::cancel);
+            answer.subscribe().withSubscriber(stream);
+        });
+    }
+
+    private class GuardedStream implements MultiSubscriber<String> {
+
+        private final List<Inspector> inspectors;
+        private final MultiEmitter<? super String> emitter;
+        // the already released context, followed by the held back text
+        private final StringBuilder window = new StringBuilder();
+        private int held;
+        private volatile Flow.Subscription subscription;
+        private volatile boolean done;
+
+        GuardedStream(List<Inspector> inspectors, MultiEmitter<? super String> emitter) {
+            this.inspectors = inspectors;
+            this.emitter = emitter;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (done) {
+                subscription.cancel();
+            } else {
+                subscription.request(Long.MAX_VALUE);
+            }
+        }
+
+        @Override
+        public void onItem(String token) {
+            if (done) {
+                return;
+            }
+            window.append(token);
+            held += token.length();
+            if (aborted(false)) {
+                return;
+            }
+            int released = held - holdBack;
+            if (released > 0) {
+                int from = window.length() - held;
+                emitter.emit(window.substring(from, from + released));
+                held = holdBack;
+            }
+            int stale = window.length() - held - holdBack;
+            if (stale > 0) {
+                window.delete(0, stale);
+            }
+        }
+
+        @Override
+        public void onFailure(Throwable failure) {
+            if (!done) {
+                done = true;
+                emitter.fail(failure);
+            }
+        }
+
+        @Override
+        public void onCompletion() {
+            if (done || aborted(true)) {
+                return;
+            }
+            done = true;
+            if (held > 0) {
+                emitter.emit(window.substring(window.length() - held));
+            }
+            emitter.complete();
+        }
+
+        void cancel() {
+            done = true;
+            Flow.Subscription subscription = this.subscription;
+            if (subscription != null) {
+                subscription.cancel();
+            }
+        }
+
+        private boolean aborted(boolean complete) {
+            for (int i = 0; i < inspectors.size(); i++) {
+                Result result = inspectors.get(i).inspect(window, complete);
+                if (result.abort()) {
+                    String guardrail = names.get(i);
+                    Log.warnf("Streamed answer aborted by %s", guardrail);
+                    registry.counter("chat.output.aborted", "guardrail", guardrail).increment();
+                    cancel();
+                    emitter.emit(result.replacement());
+                    emitter.complete();
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package dev.langchain4j.quarkus.workshop;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import static dev.langchain4j.quarkus.workshop.Exceptions.ModelOverloadedException;
+
+/**
+ * Keeps the model calls within the tokens per minute allowed by the provider, instead of finding out through 429s.
+ * <p>
+ * A token bucket holds up to a minute worth of tokens, refilled continuously. Before a call, its prompt is estimated
+ * and the estimate is taken from the bucket; once the call is done, the estimate is given back and the tokens actually
+ * used, as reported by the provider, are taken instead, so the bucket may go into debt when the estimates are too low.
+ * A call waits for its tokens for at most {@code token-budget.max-wait}, and is shed right away with a
+ * {@link ModelOverloadedException} if the bucket cannot refill in time.
+ * <p>
+ * The guardrail calls are small and gate every turn, so they are served first: an agent call waits while a guardrail
+ * call is waiting, and leaves the last {@code guardrail-reserve} fraction of the bucket to the guardrails.
+ * <p>
+ * The tokens left are exposed as the {@code chat.model.tokens.available} gauge, the estimated and actual tokens are
+ * counted in {@code chat.model.tokens}, tagged with the type.
+ */
+@ApplicationScoped
+public class TokenBudget {
+
+    @ConfigProperty(name = "customer-support-agent.token-budget.tokens-per-minute", defaultValue = "30000")
+    long tokensPerMinute;
+
+    @ConfigProperty(name = "customer-support-agent.token-budget.guardrail-reserve", defaultValue = "0.1")
+    double guardrailReserve;
+
+    @ConfigProperty(name = "customer-support-agent.token-budget.max-wait", defaultValue = "PT10S")
+    Duration maxWait;
+
+    private final MeterRegistry registry;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition refilled = lock.newCondition();
+    private final Counter estimated;
+    private final Counter actual;
+    private double capacity;
+    private double tokensPerNano;
+    private double available;
+    private long refilledAt;
+    private int guardrailsWaiting;
+
+    public TokenBudget(MeterRegistry registry) {
+        this.registry = registry;
+        this.estimated = registry.counter("chat.model.tokens", "type", "estimated");
+        this.actual = registry.counter("chat.model.tokens", "type", "actual");
+    }
+
+    @PostConstruct
+    void init() {
+        capacity = tokensPerMinute;
+        tokensPerNano = tokensPerMinute / (double) TimeUnit.MINUTES.toNanos(1);
+        available = capacity;
+        refilledAt = System.nanoTime();
+        registry.gauge("chat.model.tokens.available", this, budget -> budget.available);
+    }
+
+    /**
+     * Takes the estimated tokens of a call from the bucket, waiting for them if needed.
+     *
+     * @param guardrail whether the call checks a user message for a guardrail
+     * @throws ModelOverloadedException if the bucket cannot refill in time
+     */
+    void reserve(int tokens, boolean guardrail) throws InterruptedException {
+        estimated.increment(tokens);
+        double floor = guardrail ? 0 : capacity * guardrailReserve;
+        // a prompt larger than the bucket goes through once the bucket is full
+        double needed = Math.min(tokens, capacity - floor);
+        long deadline = System.nanoTime() + maxWait.toNanos();
+        lock.lock();
+        try {
+            if (guardrail) {
+                guardrailsWaiting++;
+            }
+            try {
+                while (true) {
+                    refill();
+                    double missing = needed - (available - floor);
+                    boolean served = guardrail || guardrailsWaiting == 0;
+                    if (served && missing <= 0) {
+                        available -= tokens;
+                        return;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    long refill = served ? (long) Math.ceil(missing / tokensPerNano) : remaining;
+                    if (remaining <= 0 || refill > remaining) {
+                        registry.counter("chat.model.calls.shed", "reason", "token-budget").increment();
+                        throw new ModelOverloadedException();
+                    }
+                    refilled.awaitNanos(refill);
+                }
+            } finally {
+                if (guardrail) {
+                    guardrailsWaiting--;
+                    refilled.signalAll();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gives back the estimate of a call once it is done, see {@link #consume(int)}.
+     */
+    void refund(int tokens) {
+        lock.lock();
+        try {
+            refill();
+            available = Math.min(capacity, available + tokens);
+            refilled.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes the tokens a model call actually used.
+     */
+    void consume(int tokens) {
+        actual.increment(tokens);
+        lock.lock();
+        try {
+            refill();
+            available -= tokens;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        available = Math.min(capacity, available + (now - refilledAt) * tokensPerNano);
+        refilledAt = now;
+    }
+}
@@ -0,0 +1,90 @@
+package dev.langchain4j.quarkus.workshop;
+
+import java.lang.reflect.Method;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+import dev.langchain4j.model.chat.listener.ChatModelListener;
+import dev.langchain4j.model.chat.listener.ChatModelRequestContext;
+import dev.langchain4j.model.chat.listener.ChatModelResponseContext;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.output.TokenUsage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.logging.Log;
+
+/**
+ * Reports the tokens used by every model call, as counted by the provider, to the {@link TokenBudget}. The listener
+ * bean is picked up by all the chat models, including the named ones.
+ * <p>
+ * It also reports the prompt tokens the provider served from its prefix cache: they are counted in
+ * {@code chat.model.tokens}, with the {@code cached} type, and the latency of the calls is timed in
+ * {@code chat.model.latency}, tagged with whether part of the prompt was cached, to compare both.
+ */
+@ApplicationScoped
+public class TokenUsageListener implements ChatModelListener {
+
+    private static final String START = "token-usage-listener.start";
+
+    // OpenAiTokenUsage is only on the classpath with the openai profile
+    private static final ClassValue<Optional<Method>> INPUT_TOKENS_DETAILS = new ClassValue<>() {
+        @Override
+        protected Optional<Method> computeValue(Class<?> type) {
+            try {
+                return Optional.of(type.getMethod("inputTokensDetails"));
+            } catch (NoSuchMethodException e) {
+                return Optional.empty();
+            }
+        }
+    };
+
+    private final TokenBudget budget;
+    private final MeterRegistry registry;
+
+    public TokenUsageListener(TokenBudget budget, MeterRegistry registry) {
+        this.budget = budget;
+        this.registry = registry;
+    }
+
+    @Override
+    public void onRequest(ChatModelRequestContext requestContext) {
+        requestContext.attributes().put(START, System.nanoTime());
+    }
+
+    @Override
+    public void onResponse(ChatModelResponseContext responseContext) {
+        ChatResponse response = responseContext.chatResponse();
+        TokenUsage usage = response.tokenUsage();
+        if (usage == null || usage.totalTokenCount() == null) {
+            return;
+        }
+        budget.consume(usage.totalTokenCount());
+        int cached = cachedTokens(usage);
+        registry.counter("chat.model.tokens", "type", "cached").increment(cached);
+        String model = Objects.requireNonNullElse(response.modelName(), "unknown");
+        if (responseContext.attributes().get(START) instanceof Long start) {
+            registry.timer("chat.model.latency", "model", model, "cached", String.valueOf(cached > 0))
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        Log.debugf("Model call to %s: %d input tokens, %d of them cached, %d output tokens", model,
+                usage.inputTokenCount(), cached, usage.outputTokenCount());
+    }
+
+    private static int cachedTokens(TokenUsage usage) {
+        Optional<Method> inputTokensDetails = INPUT_TOKENS_DETAILS.get(usage.getClass());
+        if (inputTokensDetails.isEmpty()) {
+            return 0;
+        }
+        try {
+            Object details = inputTokensDetails.get().invoke(usage);
+            if (details != null && details.getClass().getMethod("cachedTokens").invoke(details) instanceof Integer cached) {
+                return cached;
+            }
+        } catch (ReflectiveOperationException e) {
+            Log.debugf("Cannot read the cached tokens of %s: %s", usage, e.getMessage());
+        }
+        return 0;
+    }
+}
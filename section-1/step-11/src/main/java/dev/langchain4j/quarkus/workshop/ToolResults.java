@@ -0,0 +1,60 @@
+package dev.langchain4j.quarkus.workshop;
+
+import java.util.List;
+import java.util.Map;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+import dev.langchain4j.model.embedding.onnx.HuggingFaceTokenCountEstimator;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Formats the results of the tools for the model context.
+ * <p>
+ * Every tool result is part of all the following prompts of the conversation, so it is kept compact: a header line
+ * naming the fields, then one line per result with the values separated by {@code ;}, instead of a JSON object with
+ * the field names repeated for each result. The tokens each tool returns are estimated and recorded in the
+ * {@code chat.tool.result.tokens} distribution, tagged with the tool.
+ */
+@ApplicationScoped
+public class ToolResults {
+
+    private static final String BOOKING_HEADER = "id;from;to;location";
+    private static final String OUTCOME_HEADER = "id;result";
+
+    private final HuggingFaceTokenCountEstimator estimator = new HuggingFaceTokenCountEstimator();
+    private final MeterRegistry registry;
+
+    public ToolResults(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public String bookings(String tool, List<BookingSummary> bookings) {
+        StringBuilder result = new StringBuilder(BOOKING_HEADER.length() + 48 * bookings.size()).append(BOOKING_HEADER);
+        for (BookingSummary booking : bookings) {
+            result.append('\n').append(booking.id())
+                    .append(';').append(booking.dateFrom())
+                    .append(';').append(booking.dateTo())
+                    .append(';').append(value(booking.location()));
+        }
+        return record(tool, result.toString());
+    }
+
+    /**
+     * @param outcomes the result of each item of a set-oriented tool, by id
+     */
+    public String outcomes(String tool, Map<Long, String> outcomes) {
+        StringBuilder result = new StringBuilder(OUTCOME_HEADER.length() + 24 * outcomes.size()).append(OUTCOME_HEADER);
+        outcomes.forEach((id, outcome) -> result.append('\n').append(id).append(';').append(value(outcome)));
+        return record(tool, result.toString());
+    }
+
+    private String record(String tool, String result) {
+        registry.summary("chat.tool.result.tokens", "tool", tool).record(estimator.estimateTokenCountInText(result));
+        return result;
+    }
+
+    private static String value(String value) {
+        return value == null ? "" : value.replace(';', ',').replace('\n', ' ');
+    }
+}
@@ -21,6 +21,8 @@ export class DemoChat extends LitElement {
     connectedCallback() {
         const MAX_RECONNECT_ATTEMPTS = 30; // 30 attempts * 10s = 5 minutes
         const RECONNECT_INTERVAL = 10000; // 10 seconds
+        const SESSION_TOKEN_PREFIX = "session-token:";
+        const SESSION_TOKEN_KEY = "customer-support-agent-session";
 
         const chatBot = document.getElementsByTagName("chat-bot")[0];
         const that = this;
@@ -61,7 +63,10 @@ export class DemoChat extends LitElement {
 
         function createWebSocket() {
             const protocol = (window.location.protocol === 'https:') ? 'wss' : 'ws';
-            const ws = new WebSocket(protocol + '://' + window.location.host + '/customer-support-agent');
+            // present the token of the previous connection, if any, to get the conversation back
+            const token = sessionStorage.getItem(SESSION_TOKEN_KEY);
+            const ws = new WebSocket(protocol + '://' + window.location.host + '/customer-support-agent'
+                + (token ? '?resume=' + encodeURIComponent(token) : ''));
 
             ws.onopen = function() {
                 // If this is a reconnection, show reconnected message
@@ -87,6 +92,10 @@ export class DemoChat extends LitElement {
             };
 
             ws.onmessage = function (event) {
+                if (event.data.startsWith(SESSION_TOKEN_PREFIX)) {
+                    sessionStorage.setItem(SESSION_TOKEN_KEY, event.data.substring(SESSION_TOKEN_PREFIX.length));
+                    return;
+                }
                 chatBot.hideLastLoading();
                 // LLM response
                 let lastMessage;
@@ -1,3 +1,11 @@
+-- the customers are looked up by their case-insensitive name, the bookings by their customer
+CREATE INDEX customer_name_idx ON customer (LOWER(lastName), LOWER(firstName));
+CREATE INDEX booking_customer_idx ON booking (customer_id);
+-- the availability of a location: the bookings whose period overlaps a date range, see BookingAvailability
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+ALTER TABLE booking ADD COLUMN period daterange GENERATED ALWAYS AS (daterange(dateFrom, dateTo, '[]')) STORED;
+CREATE INDEX booking_location_period_idx ON booking USING gist (location, period);
+
 INSERT INTO customer (id, firstName, lastName)
 VALUES (1, 'Speedy', 'McWheels');
 INSERT INTO customer (id, firstName, lastName)
@@ -0,0 +1,83 @@
+package dev.langchain4j.quarkus.workshop;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds the PII automaton from synthetic customer names and measures the build time, the heap it takes and the
+ * matching throughput on chat-sized messages.
+ * <p>
+ * Run with {@code mvn test-compile}, then
+ * {@code java -Xmx4g -cp target/classes:target/test-classes dev.langchain4j.quarkus.workshop.AhoCorasickBenchmark [names]}
+ * (1 000 000 names by default).
+ */
+public class AhoCorasickBenchmark {
+
+    private static final String[] SYLLABLES = {"ka", "lo", "mi", "ra", "tu", "ven", "dor", "sel", "an", "ber", "qui",
+            "zo", "el", "ma", "rin", "tho", "gar", "lis", "pe", "wen"};
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Random random = new Random(42);
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            names.add(word(random) + " " + word(random));
+        }
+        List<String> messages = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            StringBuilder message = new StringBuilder();
+            while (message.length() < 500) {
+                message.append(random.nextInt(10) == 0 ? names.get(random.nextInt(count)) : word(random)).append(' ');
+            }
+            messages.add(message.toString());
+        }
+
+        long heapBefore = usedHeap();
+        long start = System.nanoTime();
+        AhoCorasick automaton = new AhoCorasick(names);
+        long buildMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        long heap = usedHeap() - heapBefore;
+        System.out.printf("%,d names (%,d distinct): built in %,d ms, ~%,d MiB%n", count, automaton.size(),
+                buildMillis, heap / (1024 * 1024));
+
+        int[] matches = new int[1];
+        AhoCorasick.MatchHandler handler = (pattern, from, to) -> matches[0]++;
+        for (int warmup = 0; warmup < 20; warmup++) {
+            messages.forEach(message -> automaton.scan(message, handler));
+        }
+        matches[0] = 0;
+        long chars = 0;
+        int rounds = 50;
+        start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            for (String message : messages) {
+                automaton.scan(message, handler);
+                chars += message.length();
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("scanned %,d messages: %.1f µs per message, %.0f M chars/s, %,d matches%n",
+                rounds * messages.size(), elapsed / 1_000.0 / (rounds * messages.size()),
+                chars * 1_000.0 / elapsed, matches[0]);
+    }
+
+    private static String word(Random random) {
+        StringBuilder word = new StringBuilder();
+        int syllables = 2 + random.nextInt(3);
+        for (int i = 0; i < syllables; i++) {
+            word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        word.setCharAt(0, Character.toUpperCase(word.charAt(0)));
+        return word.toString();
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
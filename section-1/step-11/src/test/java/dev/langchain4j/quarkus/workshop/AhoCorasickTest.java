@@ -0,0 +1,47 @@
+package dev.langchain4j.quarkus.workshop;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AhoCorasickTest {
+
+    private final AhoCorasick names = new AhoCorasick(List.of("Speedy McWheels", "Zoom", "Zoom Thunderfoot", "Al"));
+
+    @Test
+    void patternsAreNormalized() {
+        assertEquals(4, names.size());
+        assertEquals("speedy mcwheels", AhoCorasick.normalize("Speedy\t\nMcWHEELS"));
+    }
+
+    @Test
+    void caseAndWhitespaceAreFolded() {
+        String text = "Booked by SPEEDY   mcwheels\nand Zoom\tThunderfoot.";
+
+        assertEquals(List.of("speedy mcwheels [10, 27)", "zoom [32, 36)", "zoom thunderfoot [32, 48)"),
+                matches(text));
+    }
+
+    @Test
+    void onlyWholeWordsMatch() {
+        assertEquals(List.of(), matches("Zooming along with Alice, Alfred and Zoom2"));
+        assertEquals(List.of("al [0, 2)", "zoom [7, 11)"), matches("Al and Zoom!"));
+    }
+
+    @Test
+    void emptyPatternsAreIgnored() {
+        List<String> matches = new ArrayList<>();
+        new AhoCorasick(List.of("")).scan("anything", (pattern, start, end) -> matches.add(pattern));
+
+        assertEquals(List.of(), matches);
+    }
+
+    private List<String> matches(String text) {
+        List<String> matches = new ArrayList<>();
+        names.scan(text, (pattern, start, end) -> matches.add(pattern + " [" + start + ", " + end + ")"));
+        return matches;
+    }
+}
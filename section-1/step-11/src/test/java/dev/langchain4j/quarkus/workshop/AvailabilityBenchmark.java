@@ -0,0 +1,120 @@
+package dev.langchain4j.quarkus.workshop;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures the availability lookups of {@link BookingAvailability} on a large PostgreSQL database: the overlap query
+ * without an index, then with the GiST index of {@code import.sql}, then the {@link IntervalTree} of a location.
+ * <p>
+ * The tables are created in an {@code availability_benchmark} schema, which is dropped at the end. Run with
+ * {@code mvn test-compile}, then
+ * {@code java -cp target/classes:target/test-classes:<postgresql driver> dev.langchain4j.quarkus.workshop.AvailabilityBenchmark <jdbc url> <user> <password> [bookings]}
+ * (10 000 000 bookings by default, over 1 000 locations and two years).
+ */
+public class AvailabilityBenchmark {
+
+    private static final int LOCATIONS = 1_000;
+    private static final int DAYS = 730;
+    private static final int LOOKUPS = 200;
+
+    private static final String OVERLAPPING = """
+            select id, dateFrom, dateTo, location from booking
+            where location = ? and period && daterange(?, ?, '[]')""";
+
+    public static void main(String[] args) throws SQLException {
+        long bookings = args.length > 3 ? Long.parseLong(args[3]) : 10_000_000;
+        try (Connection connection = DriverManager.getConnection(args[0], args[1], args[2]);
+             Statement statement = connection.createStatement()) {
+            statement.execute("create extension if not exists btree_gist");
+            statement.execute("drop schema if exists availability_benchmark cascade");
+            statement.execute("create schema availability_benchmark");
+            statement.execute("set search_path to availability_benchmark, public");
+            try {
+                long start = System.nanoTime();
+                statement.execute("""
+                        create table booking (id bigint primary key, dateFrom date, dateTo date, location varchar(255),
+                        period daterange generated always as (daterange(dateFrom, dateTo, '[]')) stored)""");
+                statement.execute("""
+                        insert into booking (id, dateFrom, dateTo, location)
+                        select i, current_date + (i * 7919 %% %d)::int, current_date + (i * 7919 %% %d)::int + (i %% 14)::int,
+                        'Location ' || (i %% %d)
+                        from generate_series(1, %d) i""".formatted(DAYS, DAYS, LOCATIONS, bookings));
+                statement.execute("analyze");
+                System.out.printf("%,d bookings: populated in %,d ms%n", bookings, (System.nanoTime() - start) / 1_000_000);
+
+                System.out.printf("without index: %.2f ms per lookup%n", query(connection, LOOKUPS / 20));
+                start = System.nanoTime();
+                statement.execute("create index booking_location_period_idx on booking using gist (location, period)");
+                statement.execute("analyze");
+                System.out.printf("GiST index built in %,d ms%n", (System.nanoTime() - start) / 1_000_000);
+                System.out.printf("with GiST index: %.2f ms per lookup%n", query(connection, LOOKUPS));
+
+                start = System.nanoTime();
+                IntervalTree tree = load(connection, "Location 42");
+                System.out.printf("interval tree of %,d bookings loaded in %,d ms%n", tree.size(),
+                        (System.nanoTime() - start) / 1_000_000);
+                System.out.printf("with the interval tree: %.4f ms per lookup%n", inMemory(tree));
+            } finally {
+                statement.execute("drop schema availability_benchmark cascade");
+            }
+        }
+    }
+
+    private static double query(Connection connection, int lookups) throws SQLException {
+        Random random = new Random(42);
+        try (PreparedStatement overlapping = connection.prepareStatement(OVERLAPPING)) {
+            long start = System.nanoTime();
+            for (int i = 0; i < lookups; i++) {
+                LocalDate from = LocalDate.now().plusDays(random.nextInt(DAYS));
+                overlapping.setString(1, "Location " + random.nextInt(LOCATIONS));
+                overlapping.setDate(2, Date.valueOf(from));
+                overlapping.setDate(3, Date.valueOf(from.plusDays(7)));
+                try (ResultSet rows = overlapping.executeQuery()) {
+                    while (rows.next()) {
+                        rows.getLong(1);
+                    }
+                }
+            }
+            return (System.nanoTime() - start) / 1_000_000.0 / lookups;
+        }
+    }
+
+    private static IntervalTree load(Connection connection, String location) throws SQLException {
+        List<BookingSummary> bookings = new ArrayList<>();
+        try (PreparedStatement atLocation = connection.prepareStatement(
+                "select id, dateFrom, dateTo, location from booking where location = ?")) {
+            atLocation.setString(1, location);
+            try (ResultSet rows = atLocation.executeQuery()) {
+                while (rows.next()) {
+                    bookings.add(new BookingSummary(rows.getLong(1), rows.getDate(2).toLocalDate(),
+                            rows.getDate(3).toLocalDate(), rows.getString(4)));
+                }
+            }
+        }
+        return new IntervalTree(bookings);
+    }
+
+    private static double inMemory(IntervalTree tree) {
+        Random random = new Random(42);
+        int lookups = LOOKUPS * 100;
+        int found = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < lookups; i++) {
+            LocalDate from = LocalDate.now().plusDays(random.nextInt(DAYS));
+            found += tree.overlapping(from, from.plusDays(7)).size();
+        }
+        double elapsed = (System.nanoTime() - start) / 1_000_000.0 / lookups;
+        System.out.printf("(%,d bookings found)%n", found);
+        return elapsed;
+    }
+}
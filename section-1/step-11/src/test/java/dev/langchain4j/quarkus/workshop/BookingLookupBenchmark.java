@@ -0,0 +1,122 @@
+package dev.langchain4j.quarkus.workshop;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Random;
+
+/**
+ * Measures the booking lookups of the {@link BookingRepository} tools on a large PostgreSQL database, before and after
+ * the indexes of {@code import.sql}: the customer lookup by case-insensitive name followed by the bookings of the
+ * customer, as before, then the single joined query projecting the booking fields.
+ * <p>
+ * The tables are created in a {@code booking_benchmark} schema, which is dropped at the end. Run with
+ * {@code mvn test-compile}, then
+ * {@code java -cp target/classes:target/test-classes:<postgresql driver> dev.langchain4j.quarkus.workshop.BookingLookupBenchmark <jdbc url> <user> <password> [customers]}
+ * (1 000 000 customers by default, 3 bookings each; 10 000 000 takes a few minutes to populate).
+ */
+public class BookingLookupBenchmark {
+
+    private static final int LOOKUPS = 200;
+
+    private static final String FIND_CUSTOMER =
+            "select id, firstName, lastName from customer where lower(firstName) = lower(?) and lower(lastName) = lower(?)";
+    private static final String LIST_BOOKINGS =
+            "select id, customer_id, dateFrom, dateTo, location from booking where customer_id = ?";
+    private static final String JOINED = """
+            select b.id, b.dateFrom, b.dateTo, b.location
+            from booking b join customer c on c.id = b.customer_id
+            where lower(c.lastName) = lower(?) and lower(c.firstName) = lower(?)""";
+
+    public static void main(String[] args) throws SQLException {
+        int customers = args.length > 3 ? Integer.parseInt(args[3]) : 1_000_000;
+        try (Connection connection = DriverManager.getConnection(args[0], args[1], args[2]);
+             Statement statement = connection.createStatement()) {
+            statement.execute("drop schema if exists booking_benchmark cascade");
+            statement.execute("create schema booking_benchmark");
+            statement.execute("set search_path to booking_benchmark");
+            try {
+                long start = System.nanoTime();
+                populate(statement, customers);
+                System.out.printf("%,d customers, %,d bookings: populated in %,d ms%n", customers, customers * 3L,
+                        (System.nanoTime() - start) / 1_000_000);
+
+                System.out.printf("without indexes, two queries: %.2f ms per lookup%n", twoQueries(connection, customers));
+                start = System.nanoTime();
+                statement.execute("create index customer_name_idx on customer (lower(lastName), lower(firstName))");
+                statement.execute("create index booking_customer_idx on booking (customer_id)");
+                statement.execute("analyze");
+                System.out.printf("indexes built in %,d ms%n", (System.nanoTime() - start) / 1_000_000);
+                System.out.printf("with indexes, two queries: %.2f ms per lookup%n", twoQueries(connection, customers));
+                System.out.printf("with indexes, joined projection: %.2f ms per lookup%n", joined(connection, customers));
+            } finally {
+                statement.execute("drop schema booking_benchmark cascade");
+            }
+        }
+    }
+
+    private static void populate(Statement statement, int customers) throws SQLException {
+        statement.execute("create table customer (id bigint primary key, firstName varchar(255), lastName varchar(255))");
+        statement.execute("""
+                create table booking (id bigint primary key, customer_id bigint references customer,
+                dateFrom date, dateTo date, location varchar(255))""");
+        statement.execute("""
+                insert into customer
+                select i, 'First' || i, 'Last' || (i % 100000) from generate_series(1, %d) i""".formatted(customers));
+        statement.execute("""
+                insert into booking
+                select i, (i - 1) / 3 + 1, current_date + (i % 90), current_date + (i % 90) + 5, 'Location ' || (i % 500)
+                from generate_series(1, %d) i""".formatted(customers * 3L));
+        statement.execute("analyze");
+    }
+
+    /**
+     * The former lookup: the customer, then its bookings.
+     */
+    private static double twoQueries(Connection connection, int customers) throws SQLException {
+        Random random = new Random(42);
+        try (PreparedStatement findCustomer = connection.prepareStatement(FIND_CUSTOMER);
+             PreparedStatement listBookings = connection.prepareStatement(LIST_BOOKINGS)) {
+            long start = System.nanoTime();
+            for (int i = 0; i < LOOKUPS; i++) {
+                int id = 1 + random.nextInt(customers);
+                findCustomer.setString(1, "first" + id);
+                findCustomer.setString(2, "LAST" + (id % 100000));
+                long customerId = -1;
+                try (ResultSet customer = findCustomer.executeQuery()) {
+                    if (customer.next()) {
+                        customerId = customer.getLong(1);
+                    }
+                }
+                listBookings.setLong(1, customerId);
+                consume(listBookings);
+            }
+            return (System.nanoTime() - start) / 1_000_000.0 / LOOKUPS;
+        }
+    }
+
+    private static double joined(Connection connection, int customers) throws SQLException {
+        Random random = new Random(42);
+        try (PreparedStatement joined = connection.prepareStatement(JOINED)) {
+            long start = System.nanoTime();
+            for (int i = 0; i < LOOKUPS; i++) {
+                int id = 1 + random.nextInt(customers);
+                joined.setString(1, "LAST" + (id % 100000));
+                joined.setString(2, "first" + id);
+                consume(joined);
+            }
+            return (System.nanoTime() - start) / 1_000_000.0 / LOOKUPS;
+        }
+    }
+
+    private static void consume(PreparedStatement query) throws SQLException {
+        try (ResultSet rows = query.executeQuery()) {
+            while (rows.next()) {
+                rows.getLong(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package dev.langchain4j.quarkus.workshop;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Alternative;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.embedding.onnx.bgesmallenq.BgeSmallEnQuantizedEmbeddingModel;
+import dev.langchain4j.model.output.Response;
+
+/**
+ * The embedding model of the application, counting the queries embedded by the retrieval.
+ */
+@Alternative
+@Priority(1)
+@ApplicationScoped
+public class CountingEmbeddingModel implements EmbeddingModel {
+
+    private final EmbeddingModel delegate = new BgeSmallEnQuantizedEmbeddingModel();
+    private final AtomicInteger queries = new AtomicInteger();
+
+    void reset() {
+        queries.set(0);
+    }
+
+    int queries() {
+        return queries.get();
+    }
+
+    @Override
+    public Response<Embedding> embed(String text) {
+        queries.incrementAndGet();
+        return delegate.embed(text);
+    }
+
+    @Override
+    public Response<List<Embedding>> embedAll(List<TextSegment> textSegments) {
+        return delegate.embedAll(textSegments);
+    }
+
+    @Override
+    public int dimension() {
+        return delegate.dimension();
+    }
+}
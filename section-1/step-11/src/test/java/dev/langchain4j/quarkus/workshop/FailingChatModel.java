@@ -0,0 +1,55 @@
+package dev.langchain4j.quarkus.workshop;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Alternative;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+
+/**
+ * Stands in for the chat model of the agent and of the prompt injection check, failing the next answers on demand
+ * like a provider in a brownout.
+ */
+@Alternative
+@Priority(1)
+@ApplicationScoped
+public class FailingChatModel implements ChatModel {
+
+    private final AtomicInteger failures = new AtomicInteger();
+    private final AtomicInteger answers = new AtomicInteger();
+    private final AtomicInteger injectionChecks = new AtomicInteger();
+
+    void reset(int failingAnswers) {
+        failures.set(failingAnswers);
+        answers.set(0);
+        injectionChecks.set(0);
+    }
+
+    int answers() {
+        return answers.get();
+    }
+
+    int injectionChecks() {
+        return injectionChecks.get();
+    }
+
+    @Override
+    public ChatResponse doChat(ChatRequest request) {
+        if (request.messages().getFirst() instanceof SystemMessage system
+                && system.text().contains("security detection system")) {
+            injectionChecks.incrementAndGet();
+            return ChatResponse.builder().aiMessage(AiMessage.from("0.0")).build();
+        }
+        answers.incrementAndGet();
+        if (failures.getAndUpdate(remaining -> Math.max(0, remaining - 1)) > 0) {
+            throw new IllegalStateException("503 Service Unavailable");
+        }
+        return ChatResponse.builder().aiMessage(AiMessage.from("You can cancel it up to 7 days before it starts.")).build();
+    }
+}
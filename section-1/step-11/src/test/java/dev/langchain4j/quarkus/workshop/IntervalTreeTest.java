@@ -0,0 +1,71 @@
+package dev.langchain4j.quarkus.workshop;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class IntervalTreeTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 11, 1);
+
+    @Test
+    void bothEndsAreInclusive() {
+        IntervalTree tree = new IntervalTree(List.of(booking(1, 0, 6), booking(2, 7, 13)));
+
+        assertEquals(List.of(1L), ids(tree.overlapping(DAY.plusDays(6), DAY.plusDays(6))));
+        assertEquals(List.of(1L, 2L), ids(tree.overlapping(DAY.plusDays(6), DAY.plusDays(7))));
+        assertEquals(List.of(), ids(tree.overlapping(DAY.plusDays(14), DAY.plusDays(20))));
+    }
+
+    @Test
+    void longBookingsAreNotPrunedWithTheirSubtree() {
+        // the first booking sorts at the bottom left, below short bookings ending before the range
+        List<BookingSummary> bookings = new ArrayList<>();
+        bookings.add(booking(0, 0, 100));
+        for (int i = 1; i < 15; i++) {
+            bookings.add(booking(i, i, i + 1));
+        }
+        IntervalTree tree = new IntervalTree(bookings);
+
+        assertEquals(List.of(0L), ids(tree.overlapping(DAY.plusDays(50), DAY.plusDays(60))));
+        assertEquals(List.of(0L, 9L, 10L), ids(tree.overlapping(DAY.plusDays(10), DAY.plusDays(10))));
+    }
+
+    @Test
+    void findsTheSameBookingsAsAFullScan() {
+        Random random = new Random(42);
+        List<BookingSummary> bookings = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            int start = random.nextInt(365);
+            bookings.add(booking(i, start, start + random.nextInt(i % 10 == 0 ? 60 : 10)));
+        }
+        IntervalTree tree = new IntervalTree(bookings);
+
+        for (int i = 0; i < 200; i++) {
+            LocalDate from = DAY.plusDays(random.nextInt(400) - 20);
+            LocalDate to = from.plusDays(random.nextInt(30));
+            List<BookingSummary> expected = bookings.stream()
+                    .filter(booking -> !booking.dateFrom().isAfter(to) && !booking.dateTo().isBefore(from))
+                    .sorted(Comparator.comparing(BookingSummary::dateFrom).thenComparing(BookingSummary::id))
+                    .toList();
+            List<BookingSummary> found = new ArrayList<>(tree.overlapping(from, to));
+            // the bookings starting on the same day may come in any order
+            found.sort(Comparator.comparing(BookingSummary::dateFrom).thenComparing(BookingSummary::id));
+            assertEquals(expected, found);
+        }
+    }
+
+    private static BookingSummary booking(long id, int from, int to) {
+        return new BookingSummary(id, DAY.plusDays(from), DAY.plusDays(to), "Verbier, Switzerland");
+    }
+
+    private static List<Long> ids(List<BookingSummary> bookings) {
+        return bookings.stream().map(BookingSummary::id).toList();
+    }
+}
@@ -0,0 +1,165 @@
+package dev.langchain4j.quarkus.workshop;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static dev.langchain4j.quarkus.workshop.Exceptions.ModelOverloadedException;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ModelCallLimiterTest {
+
+    private static final long FAST = Duration.ofMillis(100).toNanos();
+    private static final long SLOW = Duration.ofMillis(300).toNanos();
+
+    @Test
+    void limitShrinksOnSlowAndFailedCalls() throws Exception {
+        ModelCallLimiter limiter = limiter(Duration.ofHours(1));
+        limiter.sample("chat", FAST, false);
+        assertEquals(4, slots(limiter));
+
+        // 4 * 0.9
+        limiter.sample("chat", SLOW, false);
+        assertEquals(3, slots(limiter));
+        // 3.6 * 0.9 * 0.9
+        limiter.sample("chat", FAST, true);
+        limiter.sample("chat", FAST, true);
+        assertEquals(2, slots(limiter));
+    }
+
+    @Test
+    void latencyIsComparedPerMethod() throws Exception {
+        ModelCallLimiter limiter = limiter(Duration.ofHours(1));
+        limiter.sample("chat", FAST, false);
+        limiter.sample("isInjection", SLOW, false);
+
+        assertEquals(4, slots(limiter));
+    }
+
+    @Test
+    void limitGrowsOnlyWhenUsed() throws Exception {
+        ModelCallLimiter limiter = limiter(Duration.ofHours(1));
+        for (int i = 0; i < 10; i++) {
+            limiter.sample("chat", FAST, false);
+        }
+        assertEquals(4, slots(limiter));
+
+        // at least half of the limit in flight: about one more slot per limit calls
+        for (int i = 0; i < 3; i++) {
+            limiter.acquire();
+        }
+        for (int i = 0; i < 5; i++) {
+            limiter.sample("chat", FAST, false);
+        }
+        for (int i = 0; i < 3; i++) {
+            limiter.release(false);
+        }
+        assertEquals(5, slots(limiter));
+    }
+
+    @Test
+    void limitGrowsUpToTheMaximum() throws Exception {
+        ModelCallLimiter limiter = limiter(Duration.ofHours(1));
+        for (int i = 0; i < 4; i++) {
+            limiter.acquire();
+        }
+        for (int i = 0; i < 1_000; i++) {
+            limiter.sample("chat", FAST, false);
+        }
+        for (int i = 0; i < 4; i++) {
+            limiter.release(false);
+        }
+        assertEquals(8, slots(limiter));
+    }
+
+    @Test
+    void circuitOpensWhenHalfOfTheCallsAreBad() throws Exception {
+        ModelCallLimiter limiter = limiter(Duration.ofHours(1));
+        for (int i = 0; i < 11; i++) {
+            limiter.sample("chat", FAST, false);
+        }
+        // slower than slow-call counts as bad, as a failure does
+        limiter.sample("chat", Duration.ofSeconds(2).toNanos(), false);
+        for (int i = 0; i < 8; i++) {
+            limiter.sample("chat", FAST, true);
+        }
+        assertFalse(limiter.acquire());
+        limiter.release(false);
+
+        limiter.sample("chat", FAST, true);
+        assertThrows(ModelOverloadedException.class, limiter::acquire);
+    }
+
+    @Test
+    void halfOpenCircuitClosesAfterGoodTrialCalls() throws Exception {
+        ModelCallLimiter limiter = open(limiter(Duration.ZERO));
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.acquire());
+            // one trial call at a time
+            assertThrows(ModelOverloadedException.class, limiter::acquire);
+            limiter.sample("chat", FAST, false);
+            limiter.release(true);
+        }
+
+        assertFalse(limiter.acquire());
+        limiter.release(false);
+    }
+
+    @Test
+    void badTrialCallOpensTheCircuitAgain() throws Exception {
+        ModelCallLimiter limiter = open(limiter(Duration.ofMillis(200)));
+        assertThrows(ModelOverloadedException.class, limiter::acquire);
+        Thread.sleep(300);
+
+        assertTrue(limiter.acquire());
+        limiter.sample("chat", FAST, true);
+        limiter.release(true);
+
+        assertThrows(ModelOverloadedException.class, limiter::acquire);
+    }
+
+    private static ModelCallLimiter limiter(Duration openDelay) {
+        ModelCallLimiter limiter = new ModelCallLimiter(new SimpleMeterRegistry());
+        limiter.maxLimit = 8;
+        limiter.initialLimit = 4;
+        // shed right away instead of waiting for a slot
+        limiter.maxQueue = 0;
+        limiter.latencyTolerance = 2.0;
+        limiter.maxWait = Duration.ZERO;
+        limiter.slowCall = Duration.ofSeconds(1);
+        limiter.openDelay = openDelay;
+        limiter.init();
+        return limiter;
+    }
+
+    private static ModelCallLimiter open(ModelCallLimiter limiter) {
+        for (int i = 0; i < 20; i++) {
+            limiter.sample("chat", FAST, true);
+        }
+        return limiter;
+    }
+
+    /**
+     * @return the calls let through at the same time
+     */
+    private static int slots(ModelCallLimiter limiter) throws InterruptedException {
+        int slots = 0;
+        try {
+            while (true) {
+                limiter.acquire();
+                slots++;
+            }
+        } catch (ModelOverloadedException e) {
+            for (int i = 0; i < slots; i++) {
+                limiter.release(false);
+            }
+        }
+        return slots;
+    }
+}
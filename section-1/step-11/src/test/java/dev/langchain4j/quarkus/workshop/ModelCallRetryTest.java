@@ -0,0 +1,76 @@
+package dev.langchain4j.quarkus.workshop;
+
+import java.util.Map;
+import java.util.UUID;
+
+import jakarta.inject.Inject;
+
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives the agent through the {@link HedgingChatModel} with a failing model: only the failed model calls are
+ * retried, the prompt injection check and the retrieval of the turn run once.
+ */
+@QuarkusTest
+@TestProfile(ModelCallRetryTest.StubModels.class)
+public class ModelCallRetryTest {
+
+    /**
+     * The models are stubbed, the provider is never called.
+     */
+    public static class StubModels implements QuarkusTestProfile {
+
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                    "quarkus.langchain4j.openai.api-key", "stub",
+                    "quarkus.langchain4j.openai.injection-detection.api-key", "stub");
+        }
+    }
+
+    private static final String QUESTION = "Can I cancel my booking 345 next week?";
+
+    @Inject
+    CustomerSupportAgent agent;
+
+    @Inject
+    FailingChatModel model;
+
+    @Inject
+    CountingEmbeddingModel embeddings;
+
+    @Test
+    public void testTransientFailuresRetryTheModelCallOnly() {
+        model.reset(2);
+        embeddings.reset();
+
+        String answer = agent.chat(UUID.randomUUID().toString(), QUESTION);
+
+        assertEquals("You can cancel it up to 7 days before it starts.", answer);
+        // one call per failure, plus the one answering
+        assertEquals(3, model.answers());
+        assertEquals(1, model.injectionChecks());
+        assertEquals(1, embeddings.queries());
+    }
+
+    @Test
+    public void testPersistentFailuresFallBackAfterTheRetries() {
+        model.reset(Integer.MAX_VALUE);
+        embeddings.reset();
+
+        String answer = agent.chat(UUID.randomUUID().toString(), QUESTION);
+
+        assertTrue(answer.startsWith("Failed to get a response from the AI Model"), answer);
+        // the first call and its three retries
+        assertEquals(4, model.answers());
+        assertEquals(1, model.injectionChecks());
+        assertEquals(1, embeddings.queries());
+    }
+}
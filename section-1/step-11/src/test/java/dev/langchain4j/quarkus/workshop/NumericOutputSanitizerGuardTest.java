@@ -0,0 +1,75 @@
+package dev.langchain4j.quarkus.workshop;
+
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.Test;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.guardrail.OutputGuardrailResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static dev.langchain4j.quarkus.workshop.NumericOutputSanitizerGuard.extractNumber;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NumericOutputSanitizerGuardTest {
+
+    private final NumericOutputSanitizerGuard guard = new NumericOutputSanitizerGuard();
+
+    NumericOutputSanitizerGuardTest() {
+        guard.logger = Logger.getLogger(NumericOutputSanitizerGuard.class);
+        guard.registry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void lastNumberOfTheTextIsParsed() {
+        assertEquals(0.95, extractNumber("0.95"));
+        assertEquals(0.8, extractNumber("The likelihood is 0.8."));
+        assertEquals(0.8, extractNumber("{\"score\": 0.8}"));
+        assertEquals(0.2, extractNumber("Between 0.1 and 0.2\n"));
+        assertEquals(0.5, extractNumber(".5"));
+    }
+
+    @Test
+    void signIsParsed() {
+        assertEquals(-0.5, extractNumber("-0.5"));
+        assertEquals(0.25, extractNumber("+0.25"));
+        assertEquals(-3.0, extractNumber("score: -3"));
+    }
+
+    @Test
+    void exponentIsParsed() {
+        assertEquals(0.95, extractNumber("9.5E-1"));
+        assertEquals(0.5, extractNumber("score: 5e-1"));
+        assertEquals(25.0, extractNumber("2.5e+1"));
+        assertEquals(100.0, extractNumber("1E2"));
+    }
+
+    @Test
+    void textWithoutNumberIsNotANumber() {
+        assertTrue(Double.isNaN(extractNumber(null)));
+        assertTrue(Double.isNaN(extractNumber("")));
+        assertTrue(Double.isNaN(extractNumber("I cannot tell.")));
+    }
+
+    @Test
+    void outOfRangeScoresAreClamped() {
+        assertEquals(1.0, score("1.5"));
+        assertEquals(1.0, score("1e3"));
+        assertEquals(0.0, score("-0.2"));
+        assertEquals(0.7, score("0.7"));
+    }
+
+    @Test
+    void textWithoutNumberIsReprompted() {
+        assertFalse(guard.validate(AiMessage.from("I cannot tell.")).isSuccess());
+        assertEquals(1.0, guard.registry.counter("chat.guardrail.reprompts",
+                "guardrail", "NumericOutputSanitizerGuard").count());
+    }
+
+    private double score(String text) {
+        OutputGuardrailResult result = guard.validate(AiMessage.from(text));
+        assertTrue(result.isSuccess());
+        return (Double) result.successfulResult();
+    }
+}
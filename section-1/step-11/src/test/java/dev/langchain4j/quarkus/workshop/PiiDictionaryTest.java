@@ -0,0 +1,59 @@
+package dev.langchain4j.quarkus.workshop;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PiiDictionaryTest {
+
+    private final PiiDictionary pii = new PiiDictionary(new SimpleMeterRegistry());
+
+    PiiDictionaryTest() {
+        pii.added(AhoCorasick.normalize("Speedy McWheels"));
+        pii.added(AhoCorasick.normalize("Zoom Thunderfoot"));
+    }
+
+    @Test
+    void bookingsReturnedByTheToolsAreKnown() {
+        Set<String> known = pii.known(List.of(
+                UserMessage.from("Hi, I am Speedy McWheels, what are my bookings?"),
+                ToolExecutionResultMessage.from("call-1", "listBookingsForCustomer",
+                        "id;from;to;location\n345;2026-11-02;2026-11-09;Verbier, Switzerland")));
+
+        assertTrue(known.contains("speedy mcwheels"));
+        assertTrue(known.contains("345"));
+        assertEquals("Speedy McWheels, your booking 345 starts on 2026-11-02.",
+                pii.redact("Speedy McWheels, your booking 345 starts on 2026-11-02.", known));
+    }
+
+    @Test
+    void dataOfOtherCustomersIsRedacted() {
+        Set<String> known = pii.known(List.of(
+                UserMessage.from("Hi, I am Speedy McWheels, what are my bookings?"),
+                ToolExecutionResultMessage.from("call-1", "listBookingsForCustomer",
+                        "id;from;to;location\n345;2026-11-02;2026-11-09;Verbier, Switzerland")));
+
+        assertFalse(known.contains("zoom thunderfoot"));
+        assertEquals("Your booking 345 is next to booking [redacted] of [redacted].",
+                pii.redact("Your booking 345 is next to booking 346 of Zoom Thunderfoot.", known));
+    }
+
+    @Test
+    void dataOfEarlierAnswersIsKnown() {
+        Set<String> known = pii.known(List.of(
+                UserMessage.from("Can you cancel my last booking?"),
+                AiMessage.from("Booking 345 of Speedy McWheels is cancelled.")));
+
+        assertEquals(Set.of("345", "speedy mcwheels"), known);
+    }
+}
@@ -0,0 +1,192 @@
+package dev.langchain4j.quarkus.workshop;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.pgclient.PgBuilder;
+import io.vertx.pgclient.PgConnectOptions;
+import io.vertx.sqlclient.Pool;
+import io.vertx.sqlclient.PoolOptions;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.Tuple;
+
+/**
+ * Compares the blocking {@link BookingRepository} tools with the {@link ReactiveBookingRepository} ones under
+ * concurrent chats: each chat lists the bookings of random customers, one lookup after the other, as the tool calls of
+ * a conversation. The blocking lookups run on a pool of worker threads with a JDBC connection each, the reactive ones
+ * on a single event loop with as many connections; the throughput and the threads used are reported for both.
+ * <p>
+ * The tables are created in a {@code tool_benchmark} schema, which is dropped at the end. Run with
+ * {@code mvn test-compile}, then
+ * {@code java -cp target/classes:target/test-classes:<dependencies> dev.langchain4j.quarkus.workshop.ReactiveToolBenchmark <jdbc url> <user> <password> [chats] [lookups per chat]}
+ * (500 chats of 20 lookups by default, with 20 worker threads and connections).
+ */
+public class ReactiveToolBenchmark {
+
+    private static final int CUSTOMERS = 100_000;
+    private static final int WORKERS = 20;
+
+    private static final String LIST_BOOKINGS = """
+            select b.id, b.dateFrom, b.dateTo, b.location
+            from tool_benchmark.booking b join tool_benchmark.customer c on c.id = b.customer_id
+            where lower(c.lastName) = lower(%s) and lower(c.firstName) = lower(%s)""";
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) throws Exception {
+        int chats = args.length > 3 ? Integer.parseInt(args[3]) : 500;
+        int lookups = args.length > 4 ? Integer.parseInt(args[4]) : 20;
+        try (Connection connection = DriverManager.getConnection(args[0], args[1], args[2]);
+             Statement statement = connection.createStatement()) {
+            statement.execute("drop schema if exists tool_benchmark cascade");
+            statement.execute("create schema tool_benchmark");
+            try {
+                populate(statement);
+                System.out.printf("%,d chats of %,d lookups%n", chats, lookups);
+                report("blocking", chats * lookups, () -> blocking(args, chats, lookups));
+                report("reactive", chats * lookups, () -> reactive(args, chats, lookups));
+            } finally {
+                statement.execute("drop schema tool_benchmark cascade");
+            }
+        }
+    }
+
+    private static void populate(Statement statement) throws SQLException {
+        statement.execute("create table tool_benchmark.customer (id bigint primary key, firstName varchar(255), lastName varchar(255))");
+        statement.execute("""
+                create table tool_benchmark.booking (id bigint primary key, customer_id bigint references tool_benchmark.customer,
+                dateFrom date, dateTo date, location varchar(255))""");
+        statement.execute("""
+                insert into tool_benchmark.customer
+                select i, 'First' || i, 'Last' || i from generate_series(1, %d) i""".formatted(CUSTOMERS));
+        statement.execute("""
+                insert into tool_benchmark.booking
+                select i, (i - 1) / 3 + 1, current_date + (i %% 90), current_date + (i %% 90) + 5, 'Location ' || (i %% 500)
+                from generate_series(1, %d) i""".formatted(CUSTOMERS * 3));
+        statement.execute("create index on tool_benchmark.customer (lower(lastName), lower(firstName))");
+        statement.execute("create index on tool_benchmark.booking (customer_id)");
+        statement.execute("analyze");
+    }
+
+    private interface Run {
+        void run() throws Exception;
+    }
+
+    private static void report(String variant, int lookups, Run run) throws Exception {
+        int before = THREADS.getThreadCount();
+        THREADS.resetPeakThreadCount();
+        long start = System.nanoTime();
+        run.run();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%s: %,.0f lookups/s, %d threads added%n", variant, lookups / seconds,
+                THREADS.getPeakThreadCount() - before);
+    }
+
+    private static void blocking(String[] args, int chats, int lookups) throws Exception {
+        List<Connection> connections = new ArrayList<>();
+        ThreadLocal<PreparedStatement> statements = new ThreadLocal<>();
+        ExecutorService workers = Executors.newFixedThreadPool(WORKERS);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int chat = 0; chat < chats; chat++) {
+                Random random = new Random(chat);
+                results.add(workers.submit(() -> {
+                    if (statements.get() == null) {
+                        Connection connection = DriverManager.getConnection(args[0], args[1], args[2]);
+                        synchronized (connections) {
+                            connections.add(connection);
+                        }
+                        statements.set(connection.prepareStatement(LIST_BOOKINGS.formatted("?", "?")));
+                    }
+                    PreparedStatement listBookings = statements.get();
+                    for (int i = 0; i < lookups; i++) {
+                        int id = 1 + random.nextInt(CUSTOMERS);
+                        listBookings.setString(1, "LAST" + id);
+                        listBookings.setString(2, "first" + id);
+                        try (ResultSet rows = listBookings.executeQuery()) {
+                            while (rows.next()) {
+                                rows.getLong(1);
+                            }
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            workers.shutdown();
+            workers.awaitTermination(1, TimeUnit.MINUTES);
+            for (Connection connection : connections) {
+                connection.close();
+            }
+        }
+    }
+
+    private static void reactive(String[] args, int chats, int lookups) throws Exception {
+        Vertx vertx = Vertx.vertx(new VertxOptions().setEventLoopPoolSize(1));
+        Pool pool = PgBuilder.pool()
+                .connectingTo(PgConnectOptions.fromUri(args[0].replaceFirst("^jdbc:", ""))
+                        .setUser(args[1])
+                        .setPassword(args[2]))
+                .with(new PoolOptions().setMaxSize(WORKERS).setMaxWaitQueueSize(-1))
+                .using(vertx)
+                .build();
+        try {
+            CountDownLatch done = new CountDownLatch(chats);
+            List<Throwable> failures = new ArrayList<>();
+            for (int chat = 0; chat < chats; chat++) {
+                lookup(pool, new Random(chat), lookups, done, failures);
+            }
+            done.await();
+            if (!failures.isEmpty()) {
+                throw new IllegalStateException(failures.get(0));
+            }
+        } finally {
+            pool.close().toCompletionStage().toCompletableFuture().get();
+            vertx.close().toCompletionStage().toCompletableFuture().get();
+        }
+    }
+
+    /**
+     * The remaining lookups of a chat, the next one starting when the previous one completes.
+     */
+    private static void lookup(Pool pool, Random random, int remaining, CountDownLatch done, List<Throwable> failures) {
+        if (remaining == 0) {
+            done.countDown();
+            return;
+        }
+        int id = 1 + random.nextInt(CUSTOMERS);
+        pool.preparedQuery(LIST_BOOKINGS.formatted("$1", "$2"))
+                .execute(Tuple.of("LAST" + id, "first" + id))
+                .onSuccess(rows -> {
+                    for (Row row : rows) {
+                        row.getLong(0);
+                    }
+                    lookup(pool, random, remaining - 1, done, failures);
+                })
+                .onFailure(failure -> {
+                    synchronized (failures) {
+                        failures.add(failure);
+                    }
+                    done.countDown();
+                });
+    }
+}
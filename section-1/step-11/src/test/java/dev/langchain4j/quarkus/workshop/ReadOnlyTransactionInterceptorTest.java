@@ -0,0 +1,59 @@
+package dev.langchain4j.quarkus.workshop;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.Callable;
+
+import jakarta.interceptor.InvocationContext;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Status;
+import jakarta.transaction.TransactionManager;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReadOnlyTransactionInterceptorTest {
+
+    private final ReadOnlyTransactionInterceptor interceptor = new ReadOnlyTransactionInterceptor(
+            stub(TransactionManager.class, (proxy, method, args) ->
+                    method.getName().equals("getStatus") ? Status.STATUS_NO_TRANSACTION : null),
+            stub(EntityManager.class, (proxy, method, args) ->
+                    method.getName().equals("unwrap") ? stub(Session.class, (p, m, a) -> null) : null));
+
+    @Test
+    void replicaQueriesAreNotCached() throws Exception {
+        BookingRepository repository = repository("DATABASE");
+        assertFalse((Boolean) interceptor.readOnly(context(repository::cacheable)));
+        // a write transaction reads from the primary
+        assertTrue(repository.cacheable());
+    }
+
+    @Test
+    void primaryQueriesAreCached() throws Exception {
+        BookingRepository repository = repository("NONE");
+        assertTrue((Boolean) interceptor.readOnly(context(repository::cacheable)));
+    }
+
+    @Test
+    void readOnlyTransactionEndsWithTheMethod() throws Exception {
+        assertTrue((Boolean) interceptor.readOnly(context(ReadOnlyTransactionInterceptor::inReadOnlyTransaction)));
+        assertFalse(ReadOnlyTransactionInterceptor.inReadOnlyTransaction());
+    }
+
+    private static BookingRepository repository(String multitenant) {
+        BookingRepository repository = new BookingRepository(null, null, null);
+        repository.multitenant = multitenant;
+        return repository;
+    }
+
+    private static InvocationContext context(Callable<Object> method) {
+        return stub(InvocationContext.class, (proxy, m, args) -> m.getName().equals("proceed") ? method.call() : null);
+    }
+
+    private static <T> T stub(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, handler));
+    }
+}